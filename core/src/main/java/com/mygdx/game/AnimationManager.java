@@ -2,127 +2,67 @@ package com.mygdx.game;
 
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import org.lwjgl.Sys;
-
-import java.util.HashMap;
-import java.util.Map;
 
 
+// Per-entity animation state over a shared AnimationSet: the current animation name and its state time
 public class AnimationManager {
 
-    private final Map<String, Animation<TextureRegion>> animations;
+    private final AnimationSet animations;
     private String currentState;
-    private String currentGunState;
-
-    private float stateTime;
-    private float gunStateTime;
-    private float enemyStateTime;
-    private float enemyGunStateTime;
-    private float bulletStateTime;
-    private float someStateTime;
-    private float playerStateTime;
+    private float stateTime; // Since currentState started, back to 0 whenever it changes
 
     public boolean animIsShot;
 
-    public AnimationManager() {
-        animations = new HashMap<>();
+    public AnimationManager(AnimationSet animations) {
+        this.animations = animations;
         this.stateTime = 0;
-        this.gunStateTime = 0;
-        this.enemyStateTime = 0;
-        this.enemyGunStateTime = 0;
-        this.bulletStateTime = 0;
-        this.someStateTime = 0;
-        this.playerStateTime = 0;
         currentState = "idle";
     }
 
-    public void addAnimation(String name, Animation<TextureRegion> animation) {
-        animations.put(name, animation);
-    }
-
     public void update(float delta, boolean isGrounded, boolean isMoving, boolean isFiring, boolean isShot, boolean playerDetected, int type ) {
         stateTime += delta;
-        playerStateTime += delta;
-        gunStateTime += delta;
-        enemyStateTime += delta;
-        enemyGunStateTime += delta;
-        bulletStateTime += delta;
-        someStateTime += delta;
 
         animIsShot = isShot; // Used to play animation only one time
         // type == 0 -> player
         // type == 1 -> gun
-        // type == 2 -> enemy
-        // type == 3 -> enemy gun
+        // Enemies keep their animation state in EnemyStore
 
         // Update animation state based on player conditions
 
         if(type == 0){
 
             if(isShot){
-                currentState = "dead";
+                setState("dead");
             } else if (!isGrounded) {
-                currentState = "jump";
+                setState("jump");
             } else if (isMoving) {
-                currentState = "walk";
+                setState("walk");
             } else {
-                currentState = "idle";
+                setState("idle");
             }
         } else if (type == 1){
             if (isFiring){
-                currentGunState = "gunFire";
+                setState("gunFire");
             } else if (isMoving){
-                currentGunState = "gunWalk";
-            } else {
-                currentGunState = "gunIdle";
-            }
-        } else if(type == 2){
-            if (isShot) {
-                if (animations.get("enemyNormalShot").isAnimationFinished(enemyStateTime)) { // Now works with enemy state time!!!
-                    currentState = "enemyNormalDead";
-                }
-                else currentState = "enemyNormalShot";
-            } else if(isMoving) {
-                currentState = "enemyNormalWalk";
-            } else {
-                currentState = "enemyNormalIdle";
-            }
-        } else if (type == 3) {
-            if (isFiring) {
-                currentGunState = "enemyGunFire";
-            } else if(playerDetected) {
-                currentGunState = "enemyGunDetect";
-            } else if (isMoving) {
-                currentGunState = "enemyGunWalk";
+                setState("gunWalk");
             } else {
-                currentGunState = "enemyGunIdle";
+                setState("gunIdle");
             }
         }
 
     }
 
-    public TextureRegion getCurrentPlayerFrame(boolean isFacingLeft) {
-
-        TextureRegion frame = animations.get(currentState).getKeyFrame(playerStateTime, true);
-        TextureRegion flippedFrame = new TextureRegion(frame);
-        if (isFacingLeft) {
-            flippedFrame.flip(true, false); // Flip horizontally
+    // Switching animations starts the new one from its first frame
+    public void setState(String name) {
+        if (!name.equals(currentState)) {
+            currentState = name;
+            stateTime = 0;
         }
-        return flippedFrame;
     }
 
-    public TextureRegion getCurrentEnemyFrame(boolean isFacingLeft) {
+    public TextureRegion getCurrentFrame(boolean isFacingLeft) {
 
-        TextureRegion frame = animations.get(currentState).getKeyFrame(enemyStateTime, true);
-        TextureRegion flippedFrame = new TextureRegion(frame);
-        if (isFacingLeft) {
-            flippedFrame.flip(true, false); // Flip horizontally
-        }
-        return flippedFrame;
-    }
-
-    public TextureRegion getCurrentGunFrame(boolean isFacingLeft) {
-        TextureRegion frame = animations.get(currentGunState).getKeyFrame(gunStateTime, true);
+        TextureRegion frame = animations.get(currentState).getKeyFrame(stateTime, true);
         TextureRegion flippedFrame = new TextureRegion(frame);
         if (isFacingLeft) {
             flippedFrame.flip(true, false); // Flip horizontally
@@ -131,38 +71,39 @@ public class AnimationManager {
     }
 
 
-    public TextureRegion getCurrentEnemyGunFrame(boolean isFacingLeft) {
-        TextureRegion frame = animations.get(currentGunState).getKeyFrame(enemyGunStateTime, true);
-        TextureRegion flippedFrame = new TextureRegion(frame);
-        if (isFacingLeft) {
-            flippedFrame.flip(true, false); // Flip horizontally
-        }
-        return flippedFrame;
+    public TextureRegion getSomeFrame(String name) {
+        return animations.get(name).getKeyFrame(stateTime, true);
     }
 
-    public TextureRegion getBulletFrame(String name) {
-        return animations.get(name).getKeyFrame(bulletStateTime, true);
+    public boolean getSomeAnimationFinish(String name){
+        return animations.get(name).isAnimationFinished(stateTime);
     }
 
+    public TextureRegion getLastFrame(String name) {
+        return animations.get(name).getKeyFrames()[animations.get(name).getKeyFrames().length - 1];
+    }
 
-    public TextureRegion getSomeFrame(String name) {
-        return animations.get(name).getKeyFrame(someStateTime, true);
+    public Animation<TextureRegion> getAnimation(String name) {
+        return animations.get(name);
     }
 
-    public boolean getSomeAnimationFinish(String name){
-        return animations.get(name).isAnimationFinished(someStateTime);
+    // What the render snapshot holds instead of the Animation
+    public int getAnimationId(String name) {
+        return animations.getId(name);
     }
 
-    public TextureRegion getLastFrame(String name) {
-        return animations.get(name).getKeyFrames()[animations.get(name).getKeyFrames().length - 1];
+    public String getCurrentState() {
+        return currentState;
     }
 
-    public void resetSomeStateTime() {
-        this.someStateTime = 0;
+    public float getStateTime() {
+        return stateTime;
     }
 
-    public void resetEnemyStateTime() {
-        this.enemyStateTime = 0;
+    // Like new, for pooled owners
+    public void resetStateTime() {
+        stateTime = 0;
+        animIsShot = false;
     }
 
 }
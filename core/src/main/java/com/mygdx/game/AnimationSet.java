@@ -0,0 +1,65 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Named animations of one kind of entity, built once through Assets and shared by every instance.
+ * Never changed after it has been built: entities keep only their own state times and current
+ * animation names, in their AnimationManager. Each animation also gets an id in Assets, which is
+ * what entities put in the render snapshot.
+ */
+public class AnimationSet {
+
+    public interface Builder {
+        AnimationSet build(Assets assets);
+    }
+
+    private final ObjectMap<String, Animation<TextureRegion>> animations = new ObjectMap<>();
+    private final ObjectIntMap<String> ids = new ObjectIntMap<>();
+    private final Array<String> held = new Array<>(); // Textures and atlases, released along with the set
+
+    // A sheet the animations are cut from, from the packed atlas when it has it. Held until the set is released.
+    public TextureRegion sheet(Assets assets, String path) {
+        TextureRegion region = assets.acquireAtlasRegion(path);
+        if (region != null) {
+            held.add(Assets.ATLAS);
+            return region;
+        }
+        held.add(path);
+        return new TextureRegion(assets.acquireTexture(path));
+    }
+
+    public void add(String name, Animation<TextureRegion> animation) {
+        animations.put(name, animation);
+    }
+
+    public Animation<TextureRegion> get(String name) {
+        return animations.get(name);
+    }
+
+    // Assets id of the animation, -1 if there is none by that name
+    public int getId(String name) {
+        return ids.get(name, -1);
+    }
+
+    void register(Assets assets) {
+        for (ObjectMap.Entry<String, Animation<TextureRegion>> entry : animations) {
+            ids.put(entry.key, assets.registerAnimation(entry.value));
+        }
+    }
+
+    void release(Assets assets) {
+        for (ObjectIntMap.Entry<String> entry : ids) {
+            assets.releaseAnimation(entry.value);
+        }
+        ids.clear();
+        for (String key : held) {
+            assets.release(key);
+        }
+        held.clear();
+    }
+}
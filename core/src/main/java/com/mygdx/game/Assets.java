@@ -0,0 +1,174 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Every texture, sound and animation set in the game, loaded once and shared.
+ * Each acquire hands out the same instance and counts a reference, each release takes one back,
+ * and the last release disposes it. Owners acquire in their constructor and release in dispose(),
+ * so a level with many enemies uploads every sheet once, and a level transition that builds the
+ * new entities before disposing the old ones never reloads anything.
+ * GL thread only, like the textures themselves.
+ */
+public class Assets implements Disposable {
+
+    // Everything under ATLAS_ROOT packed into one page by ./gradlew :lwjgl3:packTextures
+    public static final String ATLAS = "atlas/entities/entities.atlas";
+    private static final String ATLAS_ROOT = "Animations/";
+
+    private static class Entry {
+        final Object asset;
+        int references;
+
+        Entry(Object asset) {
+            this.asset = asset;
+        }
+    }
+
+    private final ObjectMap<String, Entry> entries = new ObjectMap<>();
+
+    // Animations by id, so a RenderSnapshot names them with an int and only the GL thread touches the Animation
+    private final Array<Animation<TextureRegion>> animations = new Array<>();
+    private final IntArray freeAnimationIds = new IntArray();
+
+    // Stats
+    public int loads, shared, unloads;
+    public long textureBytes; // Uncompressed size of the textures currently loaded
+
+    public Texture acquireTexture(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            Texture texture = new Texture(path);
+            textureBytes += (long) texture.getWidth() * texture.getHeight() * 4;
+            entry = add(path, texture);
+        }
+        return (Texture) acquire(entry);
+    }
+
+    // The image at path as packed into the atlas, null if the atlas is off, hasn't been built or doesn't have it.
+    // Counts as a reference to the atlas, released with ATLAS.
+    public TextureRegion acquireAtlasRegion(String path) {
+        if (!Constants.USE_TEXTURE_ATLAS || !path.startsWith(ATLAS_ROOT) || !path.endsWith(".png")) return null;
+
+        Entry entry = entries.get(ATLAS);
+        if (entry == null) {
+            if (!Gdx.files.internal(ATLAS).exists()) return null;
+            TextureAtlas atlas = new TextureAtlas(ATLAS);
+            for (Texture texture : atlas.getTextures()) {
+                textureBytes += (long) texture.getWidth() * texture.getHeight() * 4;
+            }
+            entry = add(ATLAS, atlas);
+        }
+
+        TextureAtlas atlas = (TextureAtlas) acquire(entry);
+        TextureRegion region = atlas.findRegion(path.substring(ATLAS_ROOT.length(), path.length() - ".png".length()));
+        if (region == null) release(ATLAS); // Not packed, the caller falls back to the PNG
+        return region;
+    }
+
+    public Sound acquireSound(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) entry = add(path, Gdx.audio.newSound(Gdx.files.internal(path)));
+        return (Sound) acquire(entry);
+    }
+
+    // The set registered under key, built on first use. Its textures are acquired through us while it is built.
+    public AnimationSet acquireAnimations(String key, AnimationSet.Builder builder) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            AnimationSet animations = builder.build(this);
+            animations.register(this);
+            entry = add(key, animations);
+        }
+        return (AnimationSet) acquire(entry);
+    }
+
+    // An id for animation until releaseAnimation, ids of released animations are handed out again
+    public int registerAnimation(Animation<TextureRegion> animation) {
+        if (freeAnimationIds.size > 0) {
+            int id = freeAnimationIds.pop();
+            animations.set(id, animation);
+            return id;
+        }
+        animations.add(animation);
+        return animations.size - 1;
+    }
+
+    public void releaseAnimation(int id) {
+        animations.set(id, null);
+        freeAnimationIds.add(id);
+    }
+
+    // Null once released
+    public Animation<TextureRegion> getAnimation(int id) {
+        return animations.get(id);
+    }
+
+    private Entry add(String key, Object asset) {
+        Entry entry = new Entry(asset);
+        entries.put(key, entry);
+        loads++;
+        return entry;
+    }
+
+    private Object acquire(Entry entry) {
+        if (entry.references > 0) shared++;
+        entry.references++;
+        return entry.asset;
+    }
+
+    // Takes back one reference from acquire*, with the same path or key
+    public void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) throw new IllegalStateException("Asset not loaded: " + key);
+        if (--entry.references > 0) return;
+
+        entries.remove(key);
+        unloads++;
+        if (entry.asset instanceof AnimationSet) {
+            ((AnimationSet) entry.asset).release(this);
+        } else {
+            if (entry.asset instanceof Texture) {
+                Texture texture = (Texture) entry.asset;
+                textureBytes -= (long) texture.getWidth() * texture.getHeight() * 4;
+            } else if (entry.asset instanceof TextureAtlas) {
+                for (Texture texture : ((TextureAtlas) entry.asset).getTextures()) {
+                    textureBytes -= (long) texture.getWidth() * texture.getHeight() * 4;
+                }
+            }
+            ((Disposable) entry.asset).dispose();
+        }
+    }
+
+    public int getReferenceCount(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.references;
+    }
+
+    // Everything still loaded, whoever forgot to release it
+    @Override
+    public void dispose() {
+        for (Entry entry : entries.values()) {
+            if (entry.asset instanceof Disposable) ((Disposable) entry.asset).dispose();
+        }
+        entries.clear();
+        animations.clear();
+        freeAnimationIds.clear();
+        textureBytes = 0;
+    }
+
+    @Override
+    public String toString() {
+        return entries.size + " loaded (" + textureBytes / 1024 + " KB of textures), " + loads + " loads, "
+            + shared + " shared, " + unloads + " unloads";
+    }
+}
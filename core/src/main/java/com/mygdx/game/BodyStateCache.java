@@ -0,0 +1,118 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Position, velocity and grounded flag of every dynamic body, read once per tick.
+ * Each Body getter is a JNI call, so gameplay and render code read these arrays instead.
+ * Bodies get a slot when registered; the slot stays valid until it is unregistered.
+ * Sleeping bodies don't move, so refresh() keeps their last state instead of reading them.
+ */
+public class BodyStateCache {
+
+    private Body[] bodies;
+    public float[] x, y;
+    public float[] prevX, prevY; // Position before the last step, for render interpolation
+    public float[] velocityX, velocityY;
+    public boolean[] grounded;
+
+    private final IntArray freeSlots = new IntArray();
+    private int slotCount; // Slots handed out so far, live or free
+
+    public BodyStateCache() {
+        allocate(64);
+    }
+
+    private void allocate(int capacity) {
+        Body[] oldBodies = bodies;
+        float[] oldX = x, oldY = y, oldPrevX = prevX, oldPrevY = prevY, oldVelocityX = velocityX, oldVelocityY = velocityY;
+        boolean[] oldGrounded = grounded;
+
+        bodies = new Body[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        grounded = new boolean[capacity];
+
+        if (oldBodies != null) {
+            System.arraycopy(oldBodies, 0, bodies, 0, slotCount);
+            System.arraycopy(oldX, 0, x, 0, slotCount);
+            System.arraycopy(oldY, 0, y, 0, slotCount);
+            System.arraycopy(oldPrevX, 0, prevX, 0, slotCount);
+            System.arraycopy(oldPrevY, 0, prevY, 0, slotCount);
+            System.arraycopy(oldVelocityX, 0, velocityX, 0, slotCount);
+            System.arraycopy(oldVelocityY, 0, velocityY, 0, slotCount);
+            System.arraycopy(oldGrounded, 0, grounded, 0, slotCount);
+        }
+    }
+
+    public int register(Body body) {
+        int slot;
+        if (freeSlots.size > 0) {
+            slot = freeSlots.pop();
+        } else {
+            if (slotCount == bodies.length) allocate(slotCount * 2);
+            slot = slotCount++;
+        }
+        bodies[slot] = body;
+        read(slot);
+        prevX[slot] = x[slot]; // Nothing to interpolate from yet
+        prevY[slot] = y[slot];
+        return slot;
+    }
+
+    public void unregister(int slot) {
+        if (slot < 0 || bodies[slot] == null) return;
+        bodies[slot] = null;
+        freeSlots.add(slot);
+    }
+
+    // Before world.step()
+    public void savePreviousPositions() {
+        System.arraycopy(x, 0, prevX, 0, slotCount);
+        System.arraycopy(y, 0, prevY, 0, slotCount);
+    }
+
+    // After world.step(), the only place bodies are read
+    public void refresh() {
+        for (int slot = 0; slot < slotCount; slot++) {
+            Body body = bodies[slot];
+            if (body != null && body.isAwake()) read(slot);
+        }
+    }
+
+    private void read(int slot) {
+        Body body = bodies[slot];
+        Vector2 position = body.getPosition();
+        x[slot] = position.x;
+        y[slot] = position.y;
+        Vector2 velocity = body.getLinearVelocity();
+        velocityX[slot] = velocity.x;
+        velocityY[slot] = velocity.y;
+        grounded[slot] = Math.abs(velocity.y) < 0.01f; // Near-zero vertical velocity
+    }
+
+    // Write-through so code later in the same tick sees the new velocity
+    public void setLinearVelocity(int slot, float vx, float vy) {
+        bodies[slot].setLinearVelocity(vx, vy);
+        velocityX[slot] = vx;
+        velocityY[slot] = vy;
+        grounded[slot] = Math.abs(vy) < 0.01f;
+    }
+
+    // Write-through for teleports, also resets interpolation so the sprite doesn't slide there
+    public void setPosition(int slot, float px, float py) {
+        bodies[slot].setTransform(px, py, 0);
+        x[slot] = prevX[slot] = px;
+        y[slot] = prevY[slot] = py;
+    }
+
+    public int getLiveCount() {
+        return slotCount - freeSlots.size;
+    }
+}
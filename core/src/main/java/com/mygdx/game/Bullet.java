@@ -1,30 +1,40 @@
 package com.mygdx.game;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 
 import static java.lang.Math.abs;
 
+// Player projectile. Bodies are created once by a ProjectilePool and parked inactive between shots.
 public class Bullet {
 
     private Body body; // Box2D body for physics
     private boolean active; // Track if the bullet is active
     private float startPosition;
+    private final float speed;
+    private BodyStateCache bodyStates;
+    private int slot = -1; // Our entry in bodyStates while in flight
 
     private boolean markedForRemoval = false;
+    private boolean hitTarget = false;
 
 
-    public Bullet(World world, float x, float y, float angle, boolean isFacingLeft) {
+    public Bullet(World world, BodyStateCache bodyStates) {
+        this(world, bodyStates, Constants.BULLET_CATEGORY, (short) (Constants.TILE_CATEGORY | Constants.ENEMY_CATEGORY),
+            Constants.RAMBO_BULLET_SPEED);
+    }
+
+    protected Bullet(World world, BodyStateCache bodyStates, short categoryBits, short maskBits, float speed) {
 
-        // Create a Box2D body for the bullet
+        this.bodyStates = bodyStates;
+        this.speed = speed;
+        this.active = false;
 
-        this.active = true;
+        // Create a Box2D body for the bullet, parked until fired
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyDef.BodyType.DynamicBody;
-        bodyDef.position.set(x + (isFacingLeft ? -Constants.RAMBO_BULLET_XOFFSET : Constants.RAMBO_BULLET_XOFFSET),
-            y - Constants.RAMBO_BULLET_YOFFSET); // Set the bullet's position with offsets
+        bodyDef.active = false;
+        bodyDef.bullet = true;
+        bodyDef.gravityScale = 0f;
         body = world.createBody(bodyDef);
 
 
@@ -40,54 +50,64 @@ public class Bullet {
         //fixtureDef.restitution = 0f;
 
         // Set the bullet's collision category and with what it can collide
-        fixtureDef.filter.categoryBits = Constants.BULLET_CATEGORY; // Bullet
-        fixtureDef.filter.maskBits = Constants.TILE_CATEGORY | Constants.ENEMY_CATEGORY; // Tile collision
+        fixtureDef.filter.categoryBits = categoryBits;
+        fixtureDef.filter.maskBits = maskBits;
 
         // Attach the fixture to the body
         Fixture bulletFixture = body.createFixture(fixtureDef);
         bulletFixture.setUserData(this);
-        // body.setUserData("friendlyBullet");
 
-        body.setGravityScale(0f);
-        // body.applyLinearImpulse(new Vector2(Constants.RAMBO_BULLET_SPEED, 0), body.getWorldCenter(), true);
+        shape.dispose();
+
+    }
 
-        if(isFacingLeft) body.setLinearVelocity(-Constants.RAMBO_BULLET_SPEED, 0);
-        else body.setLinearVelocity(Constants.RAMBO_BULLET_SPEED, 0);
+    // Re-arms a parked bullet at the shooter's position
+    public void fire(float x, float y, boolean isFacingLeft) {
 
-        body.setBullet(true);
-        shape.dispose();
+        float startX = x + (isFacingLeft ? -Constants.RAMBO_BULLET_XOFFSET : Constants.RAMBO_BULLET_XOFFSET);
+        float startY = y - Constants.RAMBO_BULLET_YOFFSET; // Set the bullet's position with offsets
 
-        // Store the starting position
-        startPosition = x;
+        body.setTransform(startX, startY, 0);
+        body.setLinearVelocity(isFacingLeft ? -speed : speed, 0);
+        body.setActive(true);
 
+        slot = bodyStates.register(body);
+        startPosition = startX;
+        active = true;
+        markedForRemoval = false;
+        hitTarget = false;
     }
 
-    public void update(float delta, boolean isFacingLeft) {
+    public void update(float delta) {
 
         // Deactivate the bullet if it goes too far
         if (this.active) {
-            float currentPosition = body.getPosition().x;
+            float currentPosition = bodyStates.x[slot];
             float distanceTraveled = currentPosition - startPosition;
             if (abs(distanceTraveled) > Constants.RAMBO_BULLET_DISTANCE) {
-                this.active = false;
-                markedForRemoval = true;
+                markForRemoval();
             }
         }
 
     }
 
-    public void render(SpriteBatch batch, TextureRegion bulletTexture, boolean isFacingLeft) {
-
-        if (this.active) {
+    // Only call outside world.step(), bodies can't be deactivated during it
+    public void park() {
+        body.setActive(false);
+        bodyStates.unregister(slot);
+        slot = -1;
+        active = false;
+    }
 
-            float newHeight = bulletTexture.getRegionHeight() / Constants.PPM;
-            float newWidth = bulletTexture.getRegionWidth() / Constants.PPM;
+    public void snapshot(RenderSnapshot snapshot, int bulletAnimation, float stateTime, float newWidth, float newHeight) {
 
-            float x = body.getPosition().x - newWidth / 2f;
-            float y = body.getPosition().y - newHeight / 2f;
+        if (this.active) {
 
-            // Draw the bullet at its calculated position
-            batch.draw(bulletTexture, x, y, newWidth, newHeight);
+            // Draw the bullet centered on its body
+            snapshot.addSprite(bulletAnimation, stateTime, true, false,
+                bodyStates.prevX[slot] - newWidth / 2f, bodyStates.prevY[slot] - newHeight / 2f,
+                bodyStates.x[slot] - newWidth / 2f, bodyStates.y[slot] - newHeight / 2f,
+                newWidth, newHeight);
         }
     }
 
@@ -95,23 +115,26 @@ public class Bullet {
         return active;
     }
 
-    public void setActive(boolean active) {
-        this.active = active;
-    }
-
     public void markForRemoval() {
         markedForRemoval = true;
         this.active = false;
-        body.setUserData(null);
+    }
+
+    // Like markForRemoval, but the bullet struck a character
+    public void markHit() {
+        markForRemoval();
+        hitTarget = true;
     }
 
     public boolean isMarkedForRemoval() {
         return markedForRemoval;
     }
 
+    public boolean hasHitTarget() {
+        return hitTarget;
+    }
+
     public Body getBody() {
         return body;
     }
 }
-
-
@@ -0,0 +1,172 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Splits the level into square chunks of tiles and only keeps collision and enemies alive
+ * for the chunks near the camera.
+ * Collision loops are baked for the whole map first, then cut at chunk borders so every chunk
+ * owns only its own chains. Fixtures and vertices alive at once depend on the view, not on how
+ * long the level is. Ghost vertices carry the outline across the cuts, so nothing snags on a seam.
+ * Enemies leave with the chunk they stand in, not the one they were spawned in.
+ */
+public class ChunkStreamer {
+
+    private final Body groundBody;
+    private final EnemySpawner spawner;
+
+    private final float chunkWidth, chunkHeight; // Meters
+    private final int columns, rows;
+    private final boolean[] loaded;
+
+    private final Array<Array<CollisionBaker.Chain>> chunkChains = new Array<>(); // Collision owned by each chunk
+    private final Array<Array<Fixture>> chunkFixtures = new Array<>(); // Its fixtures while loaded
+    private final IntArray[] chunkSpawns; // Enemy spawn triggers inside each chunk
+    private int chainCount;
+
+    private int loadedChunks;
+    private int liveFixtures;
+
+    public ChunkStreamer(Body groundBody, EnemySpawner spawner, Array<float[]> loops,
+                         int mapWidth, int mapHeight, float tileWidth, float tileHeight) {
+        this.groundBody = groundBody;
+        this.spawner = spawner;
+
+        chunkWidth = Constants.CHUNK_SIZE * tileWidth;
+        chunkHeight = Constants.CHUNK_SIZE * tileHeight;
+        columns = (mapWidth + Constants.CHUNK_SIZE - 1) / Constants.CHUNK_SIZE;
+        rows = (mapHeight + Constants.CHUNK_SIZE - 1) / Constants.CHUNK_SIZE;
+        loaded = new boolean[columns * rows];
+
+        chunkSpawns = new IntArray[columns * rows];
+        for (int i = 0; i < chunkSpawns.length; i++) {
+            chunkChains.add(new Array<>());
+            chunkFixtures.add(new Array<>());
+            chunkSpawns[i] = new IntArray();
+        }
+
+        Array<CollisionBaker.Chain> chains = CollisionBaker.splitAtChunks(loops, chunkWidth, chunkHeight, columns, rows);
+        for (CollisionBaker.Chain chain : chains) {
+            chunkChains.get(chain.chunk).add(chain);
+        }
+        chainCount = chains.size;
+
+        for (int i = 0; i < spawner.getTriggerCount(); i++) {
+            SpawnTrigger trigger = spawner.getTrigger(i);
+            chunkSpawns[row(trigger.y) * columns + column(trigger.x)].add(i);
+        }
+    }
+
+    // Loads chunks within the load margin of the view and unloads those past the unload margin
+    public void update(float viewX, float viewY, float viewWidth, float viewHeight) {
+        float left = viewX - viewWidth / 2, right = viewX + viewWidth / 2;
+        float bottom = viewY - viewHeight / 2, top = viewY + viewHeight / 2;
+
+        int loadLeft = column(left - Constants.CHUNK_LOAD_MARGIN), loadRight = column(right + Constants.CHUNK_LOAD_MARGIN);
+        int loadBottom = row(bottom - Constants.CHUNK_LOAD_MARGIN), loadTop = row(top + Constants.CHUNK_LOAD_MARGIN);
+        int keepLeft = column(left - Constants.CHUNK_UNLOAD_MARGIN), keepRight = column(right + Constants.CHUNK_UNLOAD_MARGIN);
+        int keepBottom = row(bottom - Constants.CHUNK_UNLOAD_MARGIN), keepTop = row(top + Constants.CHUNK_UNLOAD_MARGIN);
+
+        for (int cy = 0; cy < rows; cy++) {
+            for (int cx = 0; cx < columns; cx++) {
+                int chunk = cy * columns + cx;
+                boolean inLoadRange = cx >= loadLeft && cx <= loadRight && cy >= loadBottom && cy <= loadTop;
+                boolean inKeepRange = cx >= keepLeft && cx <= keepRight && cy >= keepBottom && cy <= keepTop;
+
+                if (!loaded[chunk] && inLoadRange) {
+                    loadChunk(chunk);
+                } else if (loaded[chunk] && !inKeepRange) {
+                    unloadChunk(chunk);
+                }
+            }
+        }
+        spawner.despawnUnloaded(this); // Also catches enemies that walked or fell into an unloaded chunk
+    }
+
+    private void loadChunk(int chunk) {
+        loaded[chunk] = true;
+        loadedChunks++;
+
+        Array<Fixture> fixtures = chunkFixtures.get(chunk);
+        for (CollisionBaker.Chain chain : chunkChains.get(chunk)) {
+            fixtures.add(createChainFixture(chain));
+        }
+        liveFixtures += fixtures.size;
+
+        IntArray spawns = chunkSpawns[chunk];
+        for (int i = 0; i < spawns.size; i++) {
+            spawner.arm(spawns.get(i));
+        }
+    }
+
+    private void unloadChunk(int chunk) {
+        loaded[chunk] = false;
+        loadedChunks--;
+
+        IntArray spawns = chunkSpawns[chunk];
+        for (int i = 0; i < spawns.size; i++) {
+            spawner.disarm(spawns.get(i));
+        }
+
+        Array<Fixture> fixtures = chunkFixtures.get(chunk);
+        for (Fixture fixture : fixtures) {
+            groundBody.destroyFixture(fixture);
+        }
+        liveFixtures -= fixtures.size;
+        fixtures.clear();
+    }
+
+    private Fixture createChainFixture(CollisionBaker.Chain chain) {
+        ChainShape shape = new ChainShape();
+        if (chain.loop) {
+            shape.createLoop(chain.vertices);
+        } else {
+            shape.createChain(chain.vertices);
+            shape.setPrevVertex(chain.prevX, chain.prevY);
+            shape.setNextVertex(chain.nextX, chain.nextY);
+        }
+
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.friction = 0.4f;
+
+        fixtureDef.filter.categoryBits = Constants.TILE_CATEGORY;
+        fixtureDef.filter.maskBits = Constants.PLAYER_CATEGORY | Constants.ENEMY_CATEGORY | Constants.BULLET_CATEGORY | Constants.ENEMY_BULLET_CATEGORY;
+
+        Fixture fixture = groundBody.createFixture(fixtureDef);
+        fixture.setUserData("ground");
+
+        shape.dispose();
+        return fixture;
+    }
+
+    public boolean isLoadedAt(float x, float y) {
+        return loaded[row(y) * columns + column(x)];
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / chunkWidth)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / chunkHeight)));
+    }
+
+    public int getLoadedChunks() {
+        return loadedChunks;
+    }
+
+    public int getChunkCount() {
+        return loaded.length;
+    }
+
+    public int getLiveFixtures() {
+        return liveFixtures;
+    }
+
+    public int getChainCount() {
+        return chainCount;
+    }
+}
@@ -0,0 +1,255 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Turns the Solid tile layer into as few Box2D chain loops as possible.
+ * Every connected group of solid tiles becomes one loop that follows its outline
+ * (plus one loop per hole), so walls and floors no longer come as stacks of one-row loops.
+ */
+public class CollisionBaker {
+
+    // Edge directions, counter-clockwise order so (dir + 1) % 4 is a left turn
+    private static final int RIGHT = 0, UP = 1, LEFT = 2, DOWN = 3;
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    private static final int[] TURNS = {1, 0, 3}; // Left, straight, right
+
+    private static final float NUDGE = 0.001f; // Meters towards the solid side when picking an edge's chunk
+
+    // A piece of an outline that lies in a single chunk
+    public static class Chain {
+        public int chunk; // row * columns + column
+        public float[] vertices;
+        public boolean loop; // The whole outline, it didn't cross a chunk border
+        public float prevX, prevY, nextX, nextY; // Ghost vertices of an open chain: its neighbours on the outline
+
+        Chain(int chunk, float[] vertices) {
+            this.chunk = chunk;
+            this.vertices = vertices;
+            this.loop = true;
+        }
+
+        Chain(int chunk, float[] vertices, float prevX, float prevY, float nextX, float nextY) {
+            this.chunk = chunk;
+            this.vertices = vertices;
+            this.prevX = prevX;
+            this.prevY = prevY;
+            this.nextX = nextX;
+            this.nextY = nextY;
+        }
+    }
+
+    public static class Stats {
+        public int bodies;
+        public int fixtures;
+        public int vertices;
+
+        @Override
+        public String toString() {
+            return bodies + " bodies, " + fixtures + " fixtures, " + vertices + " vertices";
+        }
+    }
+
+    public static boolean[] solidCells(TiledMapTileLayer layer) {
+        int width = layer.getWidth();
+        int height = layer.getHeight();
+        boolean[] solid = new boolean[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                solid[y * width + x] = layer.getCell(x, y) != null;
+            }
+        }
+        return solid;
+    }
+
+    /**
+     * Traces the outline of every solid region. Each loop is a flat x,y array in meters,
+     * with solid on the left of every edge and collinear points removed.
+     */
+    public static Array<float[]> traceOutlines(boolean[] solid, int width, int height, float tileWidth, float tileHeight) {
+        int stride = width + 1; // Vertices sit on tile corners
+        boolean[] edges = new boolean[stride * (height + 1) * 4];
+        int edgeCount = 0;
+
+        // Every solid tile side that faces an empty tile (or the map border) is an outline edge
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!solid[y * width + x]) continue;
+
+                if (!isSolid(solid, width, height, x, y - 1)) {
+                    edges[(y * stride + x) * 4 + RIGHT] = true;
+                    edgeCount++;
+                }
+                if (!isSolid(solid, width, height, x + 1, y)) {
+                    edges[(y * stride + x + 1) * 4 + UP] = true;
+                    edgeCount++;
+                }
+                if (!isSolid(solid, width, height, x, y + 1)) {
+                    edges[((y + 1) * stride + x + 1) * 4 + LEFT] = true;
+                    edgeCount++;
+                }
+                if (!isSolid(solid, width, height, x - 1, y)) {
+                    edges[((y + 1) * stride + x) * 4 + DOWN] = true;
+                    edgeCount++;
+                }
+            }
+        }
+
+        Array<float[]> loops = new Array<>();
+        FloatArray points = new FloatArray();
+
+        for (int start = 0; start < edges.length && edgeCount > 0; start++) {
+            if (!edges[start]) continue;
+
+            int vertex = start / 4;
+            int dir = start % 4;
+            int startVertex = vertex;
+            int startDir = dir;
+            points.clear();
+
+            // Walk edges until we come back to the first one
+            while (true) {
+                edges[vertex * 4 + dir] = false;
+                edgeCount--;
+
+                int vx = vertex % stride + DX[dir];
+                int vy = vertex / stride + DY[dir];
+                vertex = vy * stride + vx;
+
+                // Prefer turning left so tiles touching only at a corner stay separate loops
+                int next = -1;
+                for (int turn : TURNS) {
+                    int candidate = (dir + turn) % 4;
+                    boolean closesLoop = vertex == startVertex && candidate == startDir;
+                    if (edges[vertex * 4 + candidate] || closesLoop) {
+                        next = candidate;
+                        break;
+                    }
+                }
+
+                if (next != dir) {
+                    // Direction changes here, so this corner is a real vertex
+                    points.add(vx * tileWidth);
+                    points.add(vy * tileHeight);
+                }
+                if (next == -1 || (vertex == startVertex && next == startDir)) break;
+                dir = next;
+            }
+
+            if (points.size >= 6) {
+                loops.add(points.toArray());
+            }
+        }
+
+        return loops;
+    }
+
+    /**
+     * Cuts the loops from traceOutlines() at chunk borders, so each chunk owns only the geometry
+     * inside it. Every piece of an edge goes to the chunk on its solid side. A loop inside one
+     * chunk stays a loop, the others become open chains whose ghost vertices are the next points
+     * along the outline, so a body sliding over a cut doesn't catch on it.
+     */
+    public static Array<Chain> splitAtChunks(Array<float[]> loops, float chunkWidth, float chunkHeight, int columns, int rows) {
+        Array<Chain> chains = new Array<>();
+        FloatArray points = new FloatArray(); // Start of each piece
+        IntArray chunks = new IntArray(); // Chunk of each piece
+
+        for (float[] loop : loops) {
+            points.clear();
+            chunks.clear();
+
+            // Edges are axis-aligned, cut each one where it crosses a chunk border
+            for (int v = 0; v < loop.length; v += 2) {
+                float x = loop[v], y = loop[v + 1];
+                float endX = loop[(v + 2) % loop.length], endY = loop[(v + 3) % loop.length];
+                float dx = Math.signum(endX - x), dy = Math.signum(endY - y);
+
+                while (x != endX || y != endY) {
+                    float nextX = endX, nextY = endY;
+                    if (dx > 0) nextX = Math.min(endX, (float) (Math.floor(x / chunkWidth) + 1) * chunkWidth);
+                    else if (dx < 0) nextX = Math.max(endX, (float) (Math.ceil(x / chunkWidth) - 1) * chunkWidth);
+                    else if (dy > 0) nextY = Math.min(endY, (float) (Math.floor(y / chunkHeight) + 1) * chunkHeight);
+                    else nextY = Math.max(endY, (float) (Math.ceil(y / chunkHeight) - 1) * chunkHeight);
+
+                    // Solid is on the left of the edge
+                    float middleX = (x + nextX) / 2 - dy * NUDGE, middleY = (y + nextY) / 2 + dx * NUDGE;
+                    int column = Math.max(0, Math.min(columns - 1, (int) Math.floor(middleX / chunkWidth)));
+                    int row = Math.max(0, Math.min(rows - 1, (int) Math.floor(middleY / chunkHeight)));
+                    points.add(x);
+                    points.add(y);
+                    chunks.add(row * columns + column);
+                    x = nextX;
+                    y = nextY;
+                }
+            }
+
+            int count = chunks.size;
+            int start = -1; // A piece whose chunk differs from the one before it
+            for (int i = 0; i < count && start < 0; i++) {
+                if (chunks.get(i) != chunks.get((i + count - 1) % count)) start = i;
+            }
+            if (start < 0) {
+                chains.add(new Chain(chunks.get(0), loop));
+                continue;
+            }
+
+            // One open chain per run of pieces in the same chunk
+            for (int k = 0; k < count; ) {
+                int first = (start + k) % count;
+                int length = 1;
+                while (k + length < count && chunks.get((first + length) % count) == chunks.get(first)) length++;
+
+                float[] vertices = new float[(length + 1) * 2];
+                for (int i = 0; i <= length; i++) {
+                    int point = (first + i) % count;
+                    vertices[i * 2] = points.get(point * 2);
+                    vertices[i * 2 + 1] = points.get(point * 2 + 1);
+                }
+                int prev = (first + count - 1) % count, next = (first + length + 1) % count;
+                chains.add(new Chain(chunks.get(first), vertices, points.get(prev * 2), points.get(prev * 2 + 1),
+                    points.get(next * 2), points.get(next * 2 + 1)));
+                k += length;
+            }
+        }
+        return chains;
+    }
+
+    public static Stats outlineStats(Array<float[]> loops) {
+        Stats stats = new Stats();
+        stats.bodies = loops.size > 0 ? 1 : 0;
+        stats.fixtures = loops.size;
+        for (float[] loop : loops) {
+            stats.vertices += loop.length / 2;
+        }
+        return stats;
+    }
+
+    // What the old one-loop-per-row-segment approach would have created, for comparison
+    public static Stats rowSegmentStats(boolean[] solid, int width, int height) {
+        Stats stats = new Stats();
+        for (int y = 0; y < height; y++) {
+            int segmentStart = -1;
+            for (int x = 0; x <= width; x++) {
+                boolean isSolid = x < width && solid[y * width + x];
+                if (isSolid && segmentStart < 0) {
+                    segmentStart = x;
+                } else if (!isSolid && segmentStart >= 0) {
+                    stats.bodies++;
+                    stats.fixtures++;
+                    stats.vertices += (x - segmentStart) + 3; // Top corners plus the two bottom corners
+                    segmentStart = -1;
+                }
+            }
+        }
+        return stats;
+    }
+
+    private static boolean isSolid(boolean[] solid, int width, int height, int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && solid[y * width + x];
+    }
+}
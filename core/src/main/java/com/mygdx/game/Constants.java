@@ -5,6 +5,26 @@ public class Constants {
     // World constants
     public static final float PPM = 32; // 32 pixels = 1 meter
     public static final float GRAVITY = -9.8f;
+    public static final float SIM_STEP = 1 / 60f; // Fixed simulation timestep (seconds)
+    public static final int MAX_SIM_STEPS = 5; // Max ticks per frame, extra time is dropped (spiral of death guard)
+    public static final boolean THREADED_SIMULATION = false; // Step physics and AI on a separate thread from rendering
+    public static final boolean DEBUG_KEYS = false; // Developer keys in PlayingState, like the projectile stress test on K
+
+    // Level streaming
+    public static final boolean USE_LEVEL_BUNDLES = true; // Levels compiled by :lwjgl3:compileLevels, JSON and TMX if off or not compiled
+    public static final boolean PRELOAD_NEXT_LEVEL = true; // Prepare the next compiled level on a loader thread while this one is played
+    public static final int CHUNK_SIZE = 32; // Tiles per chunk side
+    public static final float CHUNK_LOAD_MARGIN = 4f; // Meters past the view edge where chunks get loaded
+    public static final float CHUNK_UNLOAD_MARGIN = 8f; // Meters past the view edge where chunks get released
+
+    // Projectiles
+    public static final boolean LIGHTWEIGHT_PROJECTILES = false; // Fly bullets in ProjectileEngine instead of Box2D bodies
+    public static final int PROJECTILE_STRESS_COUNT = 2000; // Bullets fired by the stress key (K, with DEBUG_KEYS)
+    public static final float HITSCAN_TRACER_DURATION = 0.05f; // Seconds a hitscan tracer stays on screen
+
+    // Rendering
+    public static final boolean USE_TEXTURE_ATLAS = true; // Entity frames from the packed atlas, separate PNGs if off or not packed
+    public static final boolean USE_MAP_ATLAS = true; // Each map's tilesets merged into one page, the separate tilesets if off or not packed
 
     // Player constants
     public static final float PLAYER_SPEED = 4;
@@ -28,6 +48,20 @@ public class Constants {
     public static final float RAMBO_BULLET_DISTANCE = 8f;
     public static final float RAMBO_BULLET_XOFFSET = 0.3f;
     public static final float RAMBO_BULLET_YOFFSET = 0.1f;
+    public static final int PLAYER_BULLET_POOL_SIZE = 16; // Bullets in flight at once, cooldown and range keep it under 8
+
+    // Grenades
+    public static final float GRENADE_RADIUS = 3f; // Meters, enemies touching the circle are hit
+    public static final float GRENADE_FUSE = 1.5f; // Seconds from the throw to the explosion
+    public static final float GRENADE_COOLDOWN = 1f; // Seconds between throws
+    public static final float GRENADE_THROW_SPEED_X = 4f;
+    public static final float GRENADE_THROW_SPEED_Y = 4f;
+    public static final float GRENADE_BOUNCE = 0.4f; // Speed kept when bouncing off a tile
+    public static final int MAX_GRENADES = 4; // In the air at once
+
+    // Spatial hash of live entities, for area queries
+    public static final float SPATIAL_HASH_CELL = 2f; // Meters, about the size of the usual query
+    public static final int SPATIAL_HASH_BUCKET_BITS = 10; // 1024 buckets
 
     // Enemy constants
     public static final float ENEMY_SPEED = 2f;
@@ -36,8 +70,31 @@ public class Constants {
     public static final float ENEMY_MIN_SHOT_COOLDOWN = 0.1f;
     public static final float ENEMY_BULLET_SPEED = 7f;
     public static final float ENEMY_BULLET_ALIVE_TIME = 2f;
+    public static final int ENEMY_BULLET_POOL_SIZE = 64; // Shared by every enemy, shots are dropped once it runs dry
     public static final float ENEMY_DEATH_TIMER = 3.5f;
     public static final float ENEMY_DETECTION_REACTION = 1f;
+    public static final float ENEMY_LOD_WAKE_MARGIN = 2.5f; // Meters past the view edge where enemies get their body and AI back
+    public static final float ENEMY_LOD_SLEEP_MARGIN = 3.5f; // Meters past the view edge where enemies are put to sleep
+    public static final float ENEMY_DETECTION_RADIUS = 5f; // Meters
+    public static final float ENEMY_PERCEPTION_INTERVAL = 0.1f; // Seconds between player detection checks
+    public static final float ENEMY_LOOKAHEAD = 0.1f; // Meters past the collision box checked for walls and ledges
+    public static final float ENEMY_CHASE_TIMEOUT = 10f; // Seconds an enemy follows the player's trail before giving up
+    public static final float ENEMY_ANIMATION_SPEED = 2f; // Living enemies' sheets play at twice their frame durations
+
+    // Spawning
+    public static final float SPAWN_TRIGGER_RADIUS = 12f; // Meters from the player where a spawn point comes to life
+    public static final float SPAWN_WAVE_DELAY = 5f; // Seconds between the waves of a trigger
+    public static final int ENEMY_POOL_SIZE = 1024; // Enemies alive at once, triggers wait while the pool is dry
+    public static final int ENEMY_POOL_PREWARM = 4; // Built at level load, the rest the first time they're needed
+
+    // AI scheduler
+    public static final float AI_NEAR_DISTANCE = ENEMY_DETECTION_RADIUS; // Meters from the player, enemies that can spot it think every tick
+    public static final int AI_FAR_INTERVAL = 4; // Ticks between updates of distant enemies
+    public static final long AI_BUDGET_NANOS = 1_000_000; // Per tick, distant enemies past the expected cost wait for the next tick
+    public static final int AI_MAX_SHOOTERS = 3; // Nearest enemies with line of sight allowed to shoot at once
+    public static final int AI_PARALLEL_THRESHOLD = 16; // Enemies per fork/join task, fewer than this think on the sim thread
+    public static final boolean FLOW_FIELD_CHASE = true; // Chasing enemies share one flow field instead of a path each
+    public static final float FLOW_FIELD_RANGE = 30f; // Meters of path from the player the flow field covers
 
 
     // Misc
@@ -0,0 +1,69 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.physics.box2d.*;
+
+/**
+ * World contact listener that looks begin-contact handlers up by the two fixtures'
+ * collision categories (Constants.*_CATEGORY) instead of instanceof chains.
+ * Each contact costs one table lookup no matter how many entity types are registered.
+ */
+public class ContactDispatcher implements ContactListener {
+
+    public interface Handler {
+        // Fixtures come in the order the handler was registered with
+        void beginContact(Fixture first, Fixture second);
+    }
+
+    private static final int CATEGORIES = 16; // One per filter bit
+
+    private final Handler[] handlers = new Handler[CATEGORIES * CATEGORIES];
+    private final boolean[] swapped = new boolean[CATEGORIES * CATEGORIES];
+
+    public void register(short firstCategory, short secondCategory, Handler handler) {
+        int first = index(firstCategory);
+        int second = index(secondCategory);
+
+        handlers[first * CATEGORIES + second] = handler;
+        swapped[first * CATEGORIES + second] = false;
+
+        if (first != second) {
+            handlers[second * CATEGORIES + first] = handler;
+            swapped[second * CATEGORIES + first] = true;
+        }
+    }
+
+    @Override
+    public void beginContact(Contact contact) {
+        Fixture fixtureA = contact.getFixtureA();
+        Fixture fixtureB = contact.getFixtureB();
+
+        int cell = index(fixtureA.getFilterData().categoryBits) * CATEGORIES + index(fixtureB.getFilterData().categoryBits);
+        Handler handler = handlers[cell];
+        if (handler == null) return;
+
+        if (swapped[cell]) {
+            handler.beginContact(fixtureB, fixtureA);
+        } else {
+            handler.beginContact(fixtureA, fixtureB);
+        }
+    }
+
+    private static int index(short categoryBits) {
+        return Integer.numberOfTrailingZeros(categoryBits & 0xFFFF) & (CATEGORIES - 1);
+    }
+
+    @Override
+    public void endContact(Contact contact) {
+
+    }
+
+    @Override
+    public void preSolve(Contact contact, Manifold oldManifold) {
+        // Handle pre-solve
+    }
+
+    @Override
+    public void postSolve(Contact contact, ContactImpulse impulse) {
+        // Handle post-solve
+    }
+}
@@ -9,6 +9,7 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.Array;
@@ -25,80 +26,92 @@ import static java.lang.Math.random;
 public class Enemy {
 
     private Body body;
+    private BodyStateCache bodyStates;
+    private TimerWheel timers;
+    private TileGrid grid; // Solid tiles, for line of sight and patrol checks without Box2D
+    private NavGraph nav; // Walkable surfaces and the jumps between them, null if the level has none
+    private int slot = -1; // Our entry in bodyStates, -1 while dead or in the pool
     private Player player;
     private World world;
 
-    private Vector2 initialPosition;
+    private final Vector2 initialPosition = new Vector2();
 
     private int health = 10;
-    public boolean isMoving;
     private float width, height;
-    private Vector2 deathPosition;
-
-    private enum State { PATROL, ATTACK, DEAD, IDLE }
-    private State currentState = State.PATROL;
-    private Vector2 patrolTarget;
-    private float shootTimer = 0;
-    public boolean isFiring;
-    public boolean isShot;
+    private final Vector2 deathPosition = new Vector2();
+
+    private enum State { PATROL, ATTACK, CHASE, DEAD, IDLE }
+    private static final State[] STATES = State.values();
     public boolean alreadyRendered;
-    public boolean playerDetected;
 
-    private float patrolCooldown = 0;
-    public float deathTimer;
-    private float reactionTime = Constants.ENEMY_DETECTION_REACTION;
-    private float delay; // When player is detected and out of sight, wait before turning left
-    private float bubbleTimer;
+    // Assets ids of the shared animations, the current ones and their state times are in our store row
+    private final int idleAnimation, walkAnimation, shotAnimation, deadAnimation;
+    private final int gunIdleAnimation, gunWalkAnimation, gunDetectAnimation, gunFireAnimation, bubbleAnimation;
+    private final float shotAnimationDuration;
+    private boolean bodyParked = true; // Body taken out of the simulation, while dead or in the pool
 
-    private AnimationManager animationManager;
-    private boolean enemyIsFacingLeft;
-    private boolean isAnimationPlaying;
+    // Timers on the shared wheel. think() only polls them, commit() (re)starts them from the delays it asked for
+    private final TimerWheel.Timer shotCooldown = new TimerWheel.Timer();
+    private final TimerWheel.Timer patrolCooldown = new TimerWheel.Timer(this::patrolCooldownOver);
+    private final TimerWheel.Timer chaseTimeout = new TimerWheel.Timer();
+    private final TimerWheel.Timer bubbleTimer = new TimerWheel.Timer();
+    private final TimerWheel.Timer deathTimer = new TimerWheel.Timer(() -> alreadyRendered = true);
 
-    public Set<EnemyBullet> bullets = new LinkedHashSet<>();
-    public Set<Body> bulletsToRemove;
+    // Own random stream so decisions don't depend on which thread thinks first
+    private final RandomXS128 random = new RandomXS128();
 
+    // Hot state (flags, intents, timers, animation) lives in our row of the store while spawned
+    final EnemyStore store;
+    int row = -1; // Kept up to date by the store, -1 in the pool
+    int perceptionSlot; // Our row in the PerceptionBlackboard this tick
 
-    // Sounds
+    private ProjectileLauncher bullets; // Shared enemy bullets, owned by PlayingState
 
-    Sound[] bulletSounds = new Sound[5];
 
+    // Sounds, shared through Assets like the animations
+    private static final String ANIMATIONS = "enemyNormal";
+    private static final String SOUND_PATH = "Sounds/Guns/Enemy/GunShotNormal";
+    private final Assets assets;
+    Sound[] bulletSounds = new Sound[5];
 
 
-    public Enemy(World world, float x, float y, Player player, Set<Body> bulletsToRemove) {
 
-        this.initialPosition = new Vector2(x, y);
+    // Built once by the EnemyPool with its body out of the simulation, spawn() puts it in the level
+    public Enemy(World world, BodyStateCache bodyStates, Assets assets, EnemyStore store, TimerWheel timers, TileGrid grid, NavGraph nav, Player player, ProjectileLauncher bullets) {
 
         this.player = player;
+        this.store = store;
+        this.assets = assets;
         this.world = world;
-        this.isMoving = false;
-        this.isShot = false;
-        this.isFiring = false;
-        this.alreadyRendered = false;
-        this.deathTimer = Constants.ENEMY_DEATH_TIMER;
-        this.playerDetected = false;
-        this.bulletsToRemove = bulletsToRemove;
-        this.delay = 5f;
-        this.isAnimationPlaying = false;
-        this.bubbleTimer = Constants.BUBBLE_DURATION;
-
-
-        enemyIsFacingLeft = false;
+        this.bodyStates = bodyStates;
+        this.timers = timers;
+        this.grid = grid;
+        this.nav = nav;
+        this.bullets = bullets;
+
         width = 32 / Constants.PPM;
         height = 32 / Constants.PPM;
 
-        animationManager = new AnimationManager();
+        AnimationSet animations = assets.acquireAnimations(ANIMATIONS, Enemy::buildAnimations);
+        idleAnimation = animations.getId("enemyNormalIdle");
+        walkAnimation = animations.getId("enemyNormalWalk");
+        shotAnimation = animations.getId("enemyNormalShot");
+        deadAnimation = animations.getId("enemyNormalDead");
+        gunIdleAnimation = animations.getId("enemyGunIdle");
+        gunWalkAnimation = animations.getId("enemyGunWalk");
+        gunDetectAnimation = animations.getId("enemyGunDetect");
+        gunFireAnimation = animations.getId("enemyGunFire");
+        bubbleAnimation = animations.getId("playerDetected");
+        shotAnimationDuration = animations.get("enemyNormalShot").getAnimationDuration();
 
         // Define the enemy collision shape
         float collisionBoxWidth = width / 3.5f;
         float collisionBoxHeight = height / 1.8f;
 
-        // Calculate offset to align collision box with sprite's feet
-        float yOffset = (height - collisionBoxHeight) / 2;
-
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyDef.BodyType.DynamicBody;
-        bodyDef.position.set(x, y - yOffset);
         bodyDef.fixedRotation = true;
+        bodyDef.active = false;
         body = world.createBody(bodyDef);
 
         PolygonShape shape = new PolygonShape();
@@ -124,30 +137,73 @@ public class Enemy {
         shape.dispose();
 
         loadSounds();
-        loadAnimations();
+
+    }
+
+    // Puts the enemy in the level at (x, y) with every bit of state as new. Outside world.step() only.
+    // The spawner adds our store row first, which starts out cleared.
+    public void spawn(float x, float y, long seed) {
+        initialPosition.set(x, y);
+        random.setSeed(seed);
+        store.perceptionTimer[row] = random.nextFloat() * Constants.ENEMY_PERCEPTION_INTERVAL;
+
+        health = 10;
+        setState(State.PATROL);
+        alreadyRendered = false;
+        store.reactionTime[row] = Constants.ENEMY_DETECTION_REACTION;
+        store.delay[row] = 5f;
+        store.bodyAnimation[row] = idleAnimation;
+        store.gunAnimation[row] = gunIdleAnimation;
+
+        // Collision box sits on the sprite's feet
+        float yOffset = height / 2 - getHitboxHalfHeight();
+        body.setTransform(x, y - yOffset, 0);
+        body.setLinearVelocity(0, 0);
+        body.setActive(true);
+        body.setAwake(true);
+        bodyParked = false;
+        slot = bodyStates.register(body);
+        store.bodySlot[row] = slot;
+        store.x[row] = x;
+        store.y[row] = y - yOffset;
+
+        store.navSurface[row] = nav != null ? nav.surfaceBelow(x, y - height / 2, 4) : -1;
         setRandomPatrolTarget();
+    }
+
+    // Takes a dead enemy's body out of the simulation. Outside world.step() only.
+    public void parkBody() {
+        if (bodyParked) return;
+        body.setActive(false);
+        bodyParked = true;
+    }
 
+    // Back to the pool: timers, cache slot and body all released. The spawner drops our store row.
+    public void park() {
+        cancelTimers();
+        timers.cancel(deathTimer);
+        bodyStates.unregister(slot);
+        slot = -1;
+        parkBody();
     }
 
     private void loadSounds(){
 
         for (int i = 1; i <= 5; i++) {
-            Sound bulletSound = Gdx.audio.newSound(Gdx.files.internal("Sounds/Guns/Enemy/GunShotNormal" + i + ".wav"));
-            bulletSounds[i - 1] = bulletSound;
+            bulletSounds[i - 1] = assets.acquireSound(SOUND_PATH + i + ".wav");
         }
 
     }
 
-    private void loadAnimations(){
+    // Shared by every enemy, see Assets
+    private static AnimationSet buildAnimations(Assets assets) {
+        AnimationSet animations = new AnimationSet();
 
-        Texture playerSheet = new Texture("Animations/enemy_normal_anim.png");
-        TextureRegion[][] tmpFrames = TextureRegion.split(playerSheet, 32, 32);
+        TextureRegion playerSheet = animations.sheet(assets, "Animations/enemy_normal_anim.png");
+        TextureRegion[][] tmpFrames = playerSheet.split(32, 32);
 
-        Texture enemyGunSheet = new Texture("Animations/enemy_normal_gun_anim.png");
-        TextureRegion[][] tmpGunFrames = TextureRegion.split(enemyGunSheet, 32, 32);
-
-        Texture enemyBulletSheet = new Texture("Animations/Bullet Friendly.png");
-        TextureRegion[][] tmpBulletFrames = TextureRegion.split(enemyBulletSheet, 16, 16);
+        TextureRegion enemyGunSheet = animations.sheet(assets, "Animations/enemy_normal_gun_anim.png");
+        TextureRegion[][] tmpGunFrames = enemyGunSheet.split(32, 32);
 
         // Gun animation idle
         TextureRegion[] gunIdleFrames = {tmpGunFrames[0][0], tmpGunFrames[0][0], tmpGunFrames[0][0], tmpGunFrames[2][0],
@@ -155,38 +211,33 @@ public class Enemy {
         // tmpGunFrames[2][5], tmpGunFrames[2][6], tmpGunFrames[3][0],
         // tmpGunFrames[3][1], tmpGunFrames[3][2], tmpGunFrames[3][3], tmpGunFrames[3][4], tmpGunFrames[3][5]};
 
-        animationManager.addAnimation("enemyGunIdle", new Animation<>(8f, gunIdleFrames));
+        animations.add("enemyGunIdle", new Animation<>(8f, gunIdleFrames));
 
         // Gun animation walk
         TextureRegion[] gunWalkFrames = {
                 tmpGunFrames[1][0], tmpGunFrames[1][2], tmpGunFrames[1][5],
                 tmpGunFrames[1][10], tmpGunFrames[1][15], tmpGunFrames[1][3]
         };
-        animationManager.addAnimation("enemyGunWalk", new Animation<>(0.5f, gunWalkFrames));
+        animations.add("enemyGunWalk", new Animation<>(0.5f, gunWalkFrames));
 
         // Gun detected
         TextureRegion[] gunDetectFrames = {
             tmpGunFrames[1][1], tmpGunFrames[1][2], tmpGunFrames[1][3],
             tmpGunFrames[1][7], tmpGunFrames[1][8], tmpGunFrames[1][9]};
-        animationManager.addAnimation("enemyGunDetect", new Animation<>(0.5f, gunDetectFrames));
+        animations.add("enemyGunDetect", new Animation<>(0.5f, gunDetectFrames));
 
         // Gun animation fire
         TextureRegion[] gunFireFrames = { tmpGunFrames[0][1], tmpGunFrames[0][2], tmpGunFrames[0][3]};
-        animationManager.addAnimation("enemyGunFire", new Animation<>(0.5f, gunFireFrames));
-
-
-        // Bullet animation
-        TextureRegion[] bulletFrames = {tmpBulletFrames[0][0], tmpBulletFrames[0][1], tmpBulletFrames[0][2]};
-        animationManager.addAnimation("enemyBullet", new Animation<>(0.5f, bulletFrames));
+        animations.add("enemyGunFire", new Animation<>(0.5f, gunFireFrames));
 
 
         // Idle (single frame)
         TextureRegion[] idleFrames = { tmpFrames[0][0] };
-        animationManager.addAnimation("enemyNormalIdle", new Animation<>(0.2f, idleFrames));
+        animations.add("enemyNormalIdle", new Animation<>(0.2f, idleFrames));
 
         // Walk (loop)
         TextureRegion[] walkFrames = { tmpFrames[0][1], tmpFrames[0][2], tmpFrames[0][3] };
-        animationManager.addAnimation("enemyNormalWalk", new Animation<>(0.5f, walkFrames));
+        animations.add("enemyNormalWalk", new Animation<>(0.5f, walkFrames));
 
         // Enemy shot animation
         TextureRegion[] enemyShotFrames = new TextureRegion[17];
@@ -196,267 +247,503 @@ public class Enemy {
 
         Animation<TextureRegion> shotAnimation = new Animation<>(0.3f, enemyShotFrames);
         shotAnimation.setPlayMode(Animation.PlayMode.NORMAL); // play once
-        animationManager.addAnimation("enemyNormalShot", shotAnimation);
+        animations.add("enemyNormalShot", shotAnimation);
 
 
         // Enemy dead
         TextureRegion[] enemyDeadFrames = {tmpFrames[11][30]};
-        animationManager.addAnimation("enemyNormalDead", new Animation<>(0.1f, enemyDeadFrames));
+        animations.add("enemyNormalDead", new Animation<>(0.1f, enemyDeadFrames));
 
 
         // Bubbles
 
-        Texture exSheet = new Texture("Animations/Misc/playerDetected.png");
+        TextureRegion exSheet = animations.sheet(assets, "Animations/Misc/playerDetected.png");
 
-        TextureRegion[][] tmpDetFrames = TextureRegion.split(exSheet, 32, 32);
+        TextureRegion[][] tmpDetFrames = exSheet.split(32, 32);
         Array<TextureRegion> detectFrames = new Array<>(tmpDetFrames[0]);
 
         Animation<TextureRegion> detectAnimation = new Animation<>(0.2f, detectFrames);
         detectAnimation.setPlayMode(Animation.PlayMode.NORMAL);
-        animationManager.addAnimation("playerDetected", detectAnimation);
-
+        animations.add("playerDetected", detectAnimation);
 
+        return animations;
     }
 
 
-    public void update(float delta, Vector2 playerPosition) {
+    /******* AI: think on any thread, commit on the sim thread *******/
 
-        for (EnemyBullet bullet : bullets) {
-            bullet.update(delta);
-        }
+    // Decides what to do from this enemy's own state, the body cache and the perception blackboard.
+    // Must not touch Box2D, bullets, sounds or other enemies, it runs in parallel with them.
+    public void think(float delta, PerceptionBlackboard perception) {
+
+        store.moveIntent[row] = false;
+        store.impulseIntent[row] = 0;
+        store.shootIntent[row] = false;
 
-        if(currentState != State.DEAD) {
-            if (isMoving && currentState == State.PATROL && body.getLinearVelocity().x == 0) {
+        if(state() != State.DEAD) {
+            if (store.moving[row] && state() == State.PATROL && bodyStates.velocityX[slot] == 0) {
                 setRandomPatrolTarget();
             }
 
-            detectPlayer(delta);
-            handleState(delta);
-
-            if (currentState == State.ATTACK && !hasLineOfSight()) {
-                this.delay -= delta;
-                if (this.delay <= 0) {
-                    body.applyLinearImpulse(MathUtils.random(-0.3f, 0.3f), 0, body.getWorldCenter().x, body.getWorldCenter().y, true);
-                    enemyIsFacingLeft = body.getLinearVelocity().x < 0;
-                    this.delay = 3f;
+            store.perceptionDelta[row] += delta;
+            store.perceptionTimer[row] -= delta;
+            if (store.perceptionTimer[row] <= 0) {
+                detectPlayer(store.perceptionDelta[row], perception); // Reaction time still counts all the time since the last look
+                store.perceptionDelta[row] = 0;
+                store.perceptionTimer[row] = Math.max(store.perceptionTimer[row] + Constants.ENEMY_PERCEPTION_INTERVAL, 0f);
+            }
+            handleState(delta, perception);
+
+            if (state() == State.ATTACK && (!perception.visible[perceptionSlot]
+                || perception.distance[perceptionSlot] > Constants.ENEMY_DETECTION_RADIUS)) {
+                store.delay[row] -= delta;
+                if (store.delay[row] <= 0) {
+                    if (nav != null && !perception.playerShot) {
+                        // Go after the player, the blackboard finds the path from the next tick on
+                        setState(State.CHASE);
+                        store.chaseTimeoutIntent[row] = Constants.ENEMY_CHASE_TIMEOUT;
+                        store.chaseLandingX[row] = Float.NaN;
+                    } else {
+                        store.impulseIntent[row] = random.nextFloat() * 0.6f - 0.3f;
+                        store.facingLeft[row] = store.impulseIntent[row] < 0; // Attacking enemies stand still, so the impulse sets the direction
+                    }
+                    store.delay[row] = 3f;
                 }
 
             }
+        }
+    }
 
-            animationManager.update(delta, isGroundedEnemy(), this.isMoving, this.isFiring, this.isShot, this.playerDetected,3);
+    // Applies what think() decided: velocities, impulses, shots, sounds and animation
+    public void commit(float delta) {
 
+        if(state() != State.DEAD) {
+            if (store.shotCooldownIntent[row] > 0) timers.schedule(shotCooldown, store.shotCooldownIntent[row]);
+            if (store.patrolCooldownIntent[row] > 0) timers.schedule(patrolCooldown, store.patrolCooldownIntent[row]);
+            if (store.chaseTimeoutIntent[row] > 0) timers.schedule(chaseTimeout, store.chaseTimeoutIntent[row]);
+            store.shotCooldownIntent[row] = store.patrolCooldownIntent[row] = store.chaseTimeoutIntent[row] = 0;
 
+            if (store.moveIntent[row]) {
+                bodyStates.setLinearVelocity(slot, store.moveVelocityX[row], store.moveVelocityY[row]);
+            }
+            if (store.impulseIntent[row] != 0) {
+                body.applyLinearImpulse(store.impulseIntent[row], 0, getX(), getY(), true);
+            }
+            if (store.shootIntent[row]) {
+                shoot();
+            }
         }
 
+        updateAnimation(delta);
 
+        if (store.playerDetected[row] && store.bubbleTime[row] < 0) {
+            store.bubbleTime[row] = 0;
+            timers.schedule(bubbleTimer, Constants.BUBBLE_DURATION);
+        }
 
-        animationManager.update(delta, isGroundedEnemy(), this.isMoving, this.isFiring, this.isShot, this.playerDetected,2);
+        store.firing[row] = false;
 
 
+    }
 
-        Iterator<EnemyBullet> iterator = bullets.iterator();
-        while (iterator.hasNext()) {
-            EnemyBullet bullet = iterator.next();
-            bullet.update(delta);
-            if (bullet.isMarkedForRemoval()) {
-                iterator.remove();
-                Body body = bullet.getBody();
-                if (body != null && body.isActive()) { // Check if body is active
-                    bulletsToRemove.add(body);
-                }
+    private void updateAnimation(float delta) {
+        if (state() == State.DEAD) {
+            store.bodyAnimationTime[row] += delta; // The death animation plays at its own pace
+            if (store.bodyAnimation[row] == shotAnimation && store.bodyAnimationTime[row] >= shotAnimationDuration) {
+                setBodyAnimation(deadAnimation);
             }
+            return;
         }
 
-        if(this.isShot){
-            deathTimer -= delta;
-            if(deathTimer <= 0){
-                alreadyRendered = true;
-            }
+        float animationDelta = delta * Constants.ENEMY_ANIMATION_SPEED;
+        store.bodyAnimationTime[row] += animationDelta;
+        store.gunAnimationTime[row] += animationDelta;
+        if (store.bubbleTime[row] >= 0) store.bubbleTime[row] += animationDelta;
+
+        setBodyAnimation(store.moving[row] ? walkAnimation : idleAnimation);
+        if (store.firing[row]) {
+            setGunAnimation(gunFireAnimation);
+        } else if (store.playerDetected[row]) {
+            setGunAnimation(gunDetectAnimation);
+        } else if (store.moving[row]) {
+            setGunAnimation(gunWalkAnimation);
+        } else {
+            setGunAnimation(gunIdleAnimation);
         }
+    }
 
+    // Switching animations starts the new one from its first frame
+    private void setBodyAnimation(int animation) {
+        if (store.bodyAnimation[row] != animation) {
+            store.bodyAnimation[row] = animation;
+            store.bodyAnimationTime[row] = 0;
+        }
+    }
 
+    private void setGunAnimation(int animation) {
+        if (store.gunAnimation[row] != animation) {
+            store.gunAnimation[row] = animation;
+            store.gunAnimationTime[row] = 0;
+        }
+    }
 
+    public float getX() {
+        return bodyStates.x[slot];
     }
 
-    public void render(SpriteBatch batch) {
+    public float getY() {
+        return bodyStates.y[slot];
+    }
 
+    public Body getBody() {
+        return body;
+    }
 
-        if (currentState == State.DEAD && alreadyRendered) {
-            return;
-        }
+    // Physics LOD, must be called outside world.step()
+    public void setSleeping(boolean sleeping) {
+        if (store.sleeping[row] == sleeping || store.shot[row] || bodyParked) return;
+        store.sleeping[row] = sleeping;
+        body.setActive(!sleeping); // Inactive bodies leave the broadphase and cost nothing to step
+    }
 
-        float x, y;
+    public boolean isSleeping() {
+        return store.sleeping[row];
+    }
 
+    public boolean isShot() {
+        return row >= 0 && store.shot[row];
+    }
 
-        if(currentState == State.DEAD){
-            x = deathPosition.x - width / 2;
-            y = deathPosition.y - height / 2 + Constants.SPRITE_YOFFSET;
-        } else {
-            x = body.getPosition().x - width / 2;
-            y = body.getPosition().y - height / 2 + Constants.SPRITE_YOFFSET;
-        }
+    int getNavSurface() {
+        return store.navSurface[row];
+    }
 
-        TextureRegion currentEnemyFrame = animationManager.getCurrentEnemyFrame(enemyIsFacingLeft);
+    void setNavSurface(int surface) {
+        store.navSurface[row] = surface;
+    }
 
-        if (currentState == State.DEAD) batch.draw(currentEnemyFrame, x, y - Constants.SPRITE_YOFFSET, 32 / Constants.PPM, 32 / Constants.PPM); // Need to offset the sprite
-        else batch.draw(currentEnemyFrame, x, y, 32 / Constants.PPM, 32 / Constants.PPM);
+    private State state() {
+        return STATES[store.state[row]];
+    }
 
-        if (currentState != State.DEAD) {
+    private void setState(State state) {
+        store.state[row] = (byte) state.ordinal();
+    }
 
-            TextureRegion currentGunFrame = animationManager.getCurrentEnemyGunFrame(enemyIsFacingLeft);
-            batch.draw(currentGunFrame, x, y, 32 / Constants.PPM, 32 / Constants.PPM);
+    public boolean isChasing() {
+        return state() == State.CHASE;
+    }
 
-            if (this.playerDetected) {
-                if (!this.isAnimationPlaying) {
-                    animationManager.resetSomeStateTime();
-                    this.isAnimationPlaying = true;
-                }
-                this.bubbleTimer -= Gdx.graphics.getDeltaTime();
-                if (bubbleTimer >= 0){
-                    if(!animationManager.getSomeAnimationFinish("playerDetected")) {
+    public boolean isAttacking() {
+        return state() == State.ATTACK;
+    }
 
-                        TextureRegion detectFrame = animationManager.getSomeFrame("playerDetected");
-                        batch.draw(detectFrame, x + 0.15f, y + 0.5f, 24 / Constants.PPM, 24 / Constants.PPM);
-                    } else {
-                        TextureRegion lastFrame = animationManager.getLastFrame("playerDetected");
-                        batch.draw(lastFrame, x + 0.15f, y + 0.5f, 24 / Constants.PPM, 24 / Constants.PPM);
+    // Half extents of the collision box, for hit tests outside Box2D
+    public float getHitboxHalfWidth() {
+        return width / 3.5f / 2;
+    }
 
-                    }
-                }
-            }
+    public float getHitboxHalfHeight() {
+        return height / 1.8f / 2;
+    }
+
+    public void snapshot(RenderSnapshot snapshot) {
+
+
+        if (state() == State.DEAD && alreadyRendered) {
+            return;
         }
 
-        for (EnemyBullet bullet : bullets) {
-            bullet.render(batch, animationManager.getBulletFrame("enemyBullet"), enemyIsFacingLeft);
+        float prevDrawX, prevDrawY, x, y;
+        float size = 32 / Constants.PPM;
+
+
+        if(state() == State.DEAD){
+            x = prevDrawX = deathPosition.x - width / 2;
+            y = prevDrawY = deathPosition.y - height / 2; // Dead frame sits on the ground, no sprite offset
+        } else {
+            prevDrawX = bodyStates.prevX[slot] - width / 2;
+            prevDrawY = bodyStates.prevY[slot] - height / 2 + Constants.SPRITE_YOFFSET;
+            x = getX() - width / 2;
+            y = getY() - height / 2 + Constants.SPRITE_YOFFSET;
         }
 
-        isFiring = false;
+        snapshot.addSprite(store.bodyAnimation[row], store.bodyAnimationTime[row],
+            true, store.facingLeft[row], prevDrawX, prevDrawY, x, y, size, size);
+
+        if (state() != State.DEAD) {
+
+            snapshot.addSprite(store.gunAnimation[row], store.gunAnimationTime[row],
+                true, store.facingLeft[row], prevDrawX, prevDrawY, x, y, size, size);
+
+            if (store.playerDetected[row] && bubbleTimer.isPending()) {
+                // Plays once and then holds the last frame
+                snapshot.addSprite(bubbleAnimation, store.bubbleTime[row],
+                    false, false, prevDrawX + 0.15f, prevDrawY + 0.5f, x + 0.15f, y + 0.5f, 24 / Constants.PPM, 24 / Constants.PPM);
+            }
+        }
     }
 
     public boolean isGroundedEnemy() {
         // Use velocity or other checks instead of collision flags
-        return (abs(body.getLinearVelocity().y) < 0.01f && abs(body.getLinearVelocity().y) > -0.01f); // Near-zero vertical velocity
-    }
-
-    private boolean hasLineOfSight() {
-        float xDiff = player.getBody().getPosition().y - body.getPosition().y;
-        return abs(xDiff) < 0.4;
+        return bodyStates.grounded[slot]; // Near-zero vertical velocity, read once per tick
     }
 
-    private void detectPlayer(float delta) {
+    private void detectPlayer(float delta, PerceptionBlackboard perception) {
 
-        float detectionRadius = 5f; // Meters
-        float distance = body.getPosition().x - player.getBody().getPosition().x;
+        float distance = perception.offsetX[perceptionSlot];
 
-        if (abs(distance) <= detectionRadius && hasLineOfSight()) {
-            if((distance > 0 && this.enemyIsFacingLeft) || (distance < 0 && !this.enemyIsFacingLeft) || distance == 0) {
-                this.reactionTime -= delta;
-                if (this.reactionTime <= 0) {
-                    this.currentState = State.ATTACK;
-                    this.playerDetected = true;
+        if (abs(distance) <= Constants.ENEMY_DETECTION_RADIUS && perception.visible[perceptionSlot]) {
+            if((distance > 0 && store.facingLeft[row]) || (distance < 0 && !store.facingLeft[row]) || distance == 0) {
+                store.reactionTime[row] -= delta;
+                if (store.reactionTime[row] <= 0) {
+                    setState(State.ATTACK);
+                    store.playerDetected[row] = true;
 
                 }
             }
         } else {
-            if(this.currentState == State.ATTACK){
-                this.reactionTime = Constants.ENEMY_DETECTION_REACTION;
+            if(state() == State.ATTACK){
+                store.reactionTime[row] = Constants.ENEMY_DETECTION_REACTION;
             }
         }
     }
 
-    private void handleState(float delta) {
-        switch (currentState) {
+    private void handleState(float delta, PerceptionBlackboard perception) {
+        switch (state()) {
             case PATROL:
                 patrol(delta);
                 break;
             case ATTACK:
-                attack(delta);
+                attack(delta, perception);
+                break;
+            case CHASE:
+                chase(delta, perception);
                 break;
         }
     }
 
     private void setRandomPatrolTarget() {
-        patrolCooldown = 8f;
-        currentState = State.PATROL;
-        patrolTarget = new Vector2(
-            body.getPosition().x + MathUtils.random(-3, 3),
-            body.getPosition().y
-        );
+        store.patrolCooldownIntent[row] = 8f;
+        setState(State.PATROL);
+        float targetX = getX() + random.nextInt(7) - 3;
+        if (nav != null && store.navSurface[row] >= 0) {
+            // Stay on the surface we stand on instead of walking off it
+            float margin = getHitboxHalfWidth() + Constants.ENEMY_LOOKAHEAD;
+            float left = nav.getSurfaceLeft(store.navSurface[row]) + margin;
+            float right = nav.getSurfaceRight(store.navSurface[row]) - margin;
+            targetX = left < right ? MathUtils.clamp(targetX, left, right) : getX();
+        }
+        store.patrolTargetX[row] = targetX;
+        store.patrolTargetY[row] = getY();
+    }
+
+    // Wheel callback, idle enemies wait here for nothing instead of counting down every tick
+    private void patrolCooldownOver() {
+        if (state() == State.IDLE) {
+            setRandomPatrolTarget();
+        }
+    }
+
+    private void cancelTimers() {
+        timers.cancel(shotCooldown);
+        timers.cancel(patrolCooldown);
+        timers.cancel(chaseTimeout);
+        timers.cancel(bubbleTimer);
     }
 
     private void patrol(float delta) {
         // Basic patrol logic
 
-        patrolCooldown -= delta;
-        isFiring = false;
+        store.firing[row] = false;
 
-        if (body.getPosition().dst(patrolTarget) < 0.2f) {
-            isMoving = false;
-            currentState = State.IDLE;
-            if(patrolCooldown <= 0){
+        float dx = store.patrolTargetX[row] - getX();
+        float dy = store.patrolTargetY[row] - getY();
+        float distance = (float) Math.sqrt(dx * dx + dy * dy);
+
+        if (distance < 0.2f) {
+            store.moving[row] = false;
+            setState(State.IDLE);
+            if(!patrolCooldown.isPending() && store.patrolCooldownIntent[row] == 0){
                 setRandomPatrolTarget();
             }
         } else {
-            Vector2 direction = new Vector2(patrolTarget).sub(body.getPosition()).nor();
-            body.setLinearVelocity(Constants.ENEMY_SPEED * direction.x, body.getLinearVelocity().y);
-            enemyIsFacingLeft = direction.x < 0;
-            isMoving = true;
+            float directionX = dx / distance;
+            boolean left = directionX < 0;
+            float lookAhead = getHitboxHalfWidth() + Constants.ENEMY_LOOKAHEAD;
+            if (isGroundedEnemy() && (grid.isWallAhead(getX(), getY(), left, lookAhead)
+                || grid.isLedgeAhead(getX(), getY() - getHitboxHalfHeight(), left, lookAhead))) {
+                // Turn around instead of walking into a wall or off a ledge
+                store.patrolTargetX[row] = getX() + (left ? 1 : -1) * (1 + random.nextInt(3));
+                directionX = -directionX;
+            }
+            store.moveIntent[row] = true;
+            store.moveVelocityX[row] = Constants.ENEMY_SPEED * directionX;
+            store.moveVelocityY[row] = bodyStates.velocityY[slot];
+            store.facingLeft[row] = directionX < 0;
+            store.moving[row] = true;
         }
 
     }
 
-    private void attack(float delta) {
+    private void attack(float delta, PerceptionBlackboard perception) {
         // Stop moving when attacking
-        body.setLinearVelocity(0, 0);
-        isMoving = false;
-
-        shootTimer -= delta;
-        if (shootTimer <= 0) {
-            shoot();
-            shootTimer = MathUtils.random(Constants.ENEMY_MIN_SHOT_COOLDOWN, Constants.ENEMY_MAX_SHOT_COOLDOWN);
+        store.moveIntent[row] = true;
+        store.moveVelocityX[row] = 0;
+        store.moveVelocityY[row] = 0;
+        store.moving[row] = false;
+
+        if (!shotCooldown.isPending() && perception.mayShoot[perceptionSlot]) { // Otherwise hold fire until a shooter spot frees up
+            store.shootIntent[row] = true;
+            store.shotCooldownIntent[row] = MathUtils.lerp(Constants.ENEMY_MIN_SHOT_COOLDOWN, Constants.ENEMY_MAX_SHOT_COOLDOWN, random.nextFloat());
             // System.out.println("Enemy shot");
         }
     }
 
-    public void shoot(){
+    // Follows the flow field or NavGraph edges towards the player until they're in sight again
+    private void chase(float delta, PerceptionBlackboard perception) {
+        store.firing[row] = false;
+
+        if (!chaseTimeout.isPending() || perception.playerShot) {
+            stopChasing();
+            return;
+        }
 
-        isFiring = true;
+        if (!perception.onSurface[perceptionSlot] || !isGroundedEnemy()) {
+            // Jumping or falling, steer towards the landing spot
+            if (!Float.isNaN(store.chaseLandingX[row])) {
+                walkTowards(store.chaseLandingX[row], bodyStates.velocityY[slot]);
+            }
+            return;
+        }
+        store.chaseLandingX[row] = Float.NaN;
 
-        Vector2 playerPos = player.getBody().getPosition();
-        boolean playerIsLeft = playerPos.x < body.getPosition().x;
+        boolean hasWay = perception.flow != null ? followField(perception) : followPath(perception);
+        if (!hasWay) {
+            stopChasing();
+        }
+    }
 
-        // Create projectile (similar to player bullets)
-        float offsetX = enemyIsFacingLeft ? -0.05f : 0.05f;
-        Vector2 spawnPos = body.getPosition().cpy().add(offsetX, 0);
+    private boolean followPath(PerceptionBlackboard perception) {
+        int edge = perception.chaseEdge[perceptionSlot];
+        if (edge == PerceptionBlackboard.NO_PATH) return false;
 
-        bullets.add(new EnemyBullet(world, spawnPos.x, spawnPos.y, enemyIsFacingLeft, playerIsLeft));
-        bulletSounds[MathUtils.random(0, 4)].play(0.8f);
+        if (edge == PerceptionBlackboard.SAME_SURFACE) {
+            approachPlayer(perception);
+            return true;
+        }
 
+        float takeoffX = nav.getTakeoffX(edge);
+        if (Math.abs(takeoffX - getX()) > 0.1f) {
+            walkTowards(takeoffX, bodyStates.velocityY[slot]);
+            return true;
+        }
+
+        // At the take-off point: jump, or just keep walking off the ledge
+        store.chaseLandingX[row] = nav.getLandingX(edge);
+        walkTowards(store.chaseLandingX[row], nav.getEdgeType(edge) == NavGraph.JUMP ? Constants.PLAYER_JUMP : bodyStates.velocityY[slot]);
+        return true;
     }
 
-    public void dead(){
-        if(!this.isShot) {
-            currentState = State.DEAD;
-            this.isShot = true;
-            animationManager.resetEnemyStateTime();
-            deathPosition = body.getPosition().cpy();
+    private boolean followField(PerceptionBlackboard perception) {
+        FlowField flow = perception.flow;
+        int node = flow.nodeAt(getX(), getY() - getHitboxHalfHeight());
+        if (node < 0) return false;
+
+        if (flow.getDistance(node) < 1f) { // Jumps cost more than this, so we're on the player's surface
+            approachPlayer(perception);
+            return true;
+        }
+
+        int link = flow.nextLink(node);
+        if (link < 0) return false;
+
+        int next = flow.getLinkTarget(link);
+        if (flow.getLinkType(link) == FlowField.WALK) {
+            walkTowards(flow.getNodeX(next), bodyStates.velocityY[slot]);
+            return true;
+        }
 
-            // world.destroyBody(body);
+        // Jumps and drops leave from the middle of the tile, the reach was worked out from there
+        if (Math.abs(flow.getNodeX(node) - getX()) > 0.1f) {
+            walkTowards(flow.getNodeX(node), bodyStates.velocityY[slot]);
+            return true;
         }
+        store.chaseLandingX[row] = flow.getNodeX(next);
+        walkTowards(store.chaseLandingX[row], flow.getLinkType(link) == NavGraph.JUMP ? Constants.PLAYER_JUMP : bodyStates.velocityY[slot]);
+        return true;
     }
 
+    private void approachPlayer(PerceptionBlackboard perception) {
+        if (Math.abs(perception.offsetX[perceptionSlot]) < 1f) {
+            store.moveIntent[row] = true;
+            store.moveVelocityX[row] = 0;
+            store.moveVelocityY[row] = bodyStates.velocityY[slot];
+            store.moving[row] = false;
+            store.facingLeft[row] = perception.offsetX[perceptionSlot] > 0;
+        } else {
+            walkTowards(perception.playerX, bodyStates.velocityY[slot]);
+        }
+    }
+
+    private void stopChasing() {
+        store.chaseLandingX[row] = Float.NaN;
+        setRandomPatrolTarget();
+    }
+
+    private void walkTowards(float targetX, float velocityY) {
+        float directionX = Math.signum(targetX - getX());
+        store.moveIntent[row] = true;
+        store.moveVelocityX[row] = Constants.ENEMY_SPEED * directionX;
+        store.moveVelocityY[row] = velocityY;
+        if (directionX != 0) store.facingLeft[row] = directionX < 0;
+        store.moving[row] = directionX != 0;
+    }
+
+    public void shoot(){
+
+        store.firing[row] = true;
+
+        // Fire a shared projectile (similar to player bullets)
+        float offsetX = store.facingLeft[row] ? -0.05f : 0.05f;
+        if (bullets.fire(getX() + offsetX, getY(), store.facingLeft[row])) {
+            bulletSounds[MathUtils.random(0, 4)].play(0.8f);
+        }
+
+    }
+
+    public void dead(){
+        if(row >= 0 && !store.shot[row]) { // Pooled enemies can still be hit by a stale target
+            setState(State.DEAD);
+            store.shot[row] = true;
+            setBodyAnimation(shotAnimation);
+            deathPosition.set(getX(), getY());
+            cancelTimers();
+            timers.schedule(deathTimer, Constants.ENEMY_DEATH_TIMER);
+            bodyStates.unregister(slot); // Body is parked after this step, the pool reuses it
+            slot = -1;
+            store.bodySlot[row] = -1;
+        }
+    }
+
+    // For good, when the pool is dropped and the world lives on
     public void cleanup() {
-        // Only need to destroy body, no state reset needed
+        park();
+
         if(body != null) {
             world.destroyBody(body);
             body = null;
         }
 
-        // Cleanup bullets
-        for(EnemyBullet bullet : bullets) {
-            bullet.markForRemoval();
+        // Bullets in flight belong to the pool and run out on their own
+    }
+
+    // Gives back our references to the shared animations and sounds, the body goes with the world
+    public void dispose() {
+        assets.release(ANIMATIONS);
+        for (int i = 1; i <= bulletSounds.length; i++) {
+            assets.release(SOUND_PATH + i + ".wav");
         }
-        bullets.clear();
     }
 
 }
@@ -0,0 +1,74 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Enemies waiting to be spawned. Building one creates its body and, for the first enemy, loads the
+ * shared animations and sounds, so they are built once, parked when they die or leave, and spawned again instead.
+ * Never builds more than its capacity, which bounds the live enemy count on long levels.
+ */
+public class EnemyPool {
+
+    public interface Factory {
+        Enemy create();
+    }
+
+    private final Factory factory;
+    private final int capacity;
+    private final Array<Enemy> free = new Array<>();
+    private int built;
+
+    // Stats
+    public int obtained, exhausted;
+
+    public EnemyPool(int capacity, Factory factory) {
+        this.capacity = capacity;
+        this.factory = factory;
+    }
+
+    // Builds enemies ahead of time, up to count in total
+    public void prewarm(int count) {
+        while (built < Math.min(count, capacity)) {
+            free.add(factory.create());
+            built++;
+        }
+    }
+
+    // A parked enemy, null if all capacity enemies are alive
+    public Enemy obtain() {
+        if (free.size == 0) {
+            if (built == capacity) {
+                exhausted++;
+                return null;
+            }
+            free.add(factory.create());
+            built++;
+        }
+        obtained++;
+        return free.pop();
+    }
+
+    // Outside world.step() only
+    public void free(Enemy enemy) {
+        enemy.park();
+        free.add(enemy);
+    }
+
+    // Parked enemies only, live ones belong to the spawner
+    public void dispose() {
+        for (Enemy enemy : free) {
+            enemy.dispose();
+        }
+        free.clear();
+    }
+
+    public int getFreeCount() {
+        return free.size;
+    }
+
+    @Override
+    public String toString() {
+        return (built - free.size) + "/" + capacity + " in use, " + built + " built, " + obtained + " spawned, "
+            + exhausted + " exhausted";
+    }
+}
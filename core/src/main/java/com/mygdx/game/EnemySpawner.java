@@ -6,73 +6,399 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.Array;
 
-import java.util.Iterator;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 
 public class EnemySpawner {
 
-    private Array<Enemy> enemies = new Array<>();
-    public Array<Vector2> spawnPoints = new Array<>();
+    private final EnemyStore store = new EnemyStore(Constants.ENEMY_POOL_SIZE); // Spawned enemies, one row each
     private World world;
     private Player player;
-    private Set<Body> bulletsToRemove;
+    private ProjectileLauncher bullets;
+    private BodyStateCache bodyStates;
+    private TimerWheel timers;
+    private Assets assets;
+    private TileGrid grid;
+    private NavGraph nav;
+
+    // Spawn triggers, per-trigger state in parallel arrays
+    private Array<SpawnTrigger> triggers = new Array<>();
+    private boolean[] armed = new boolean[0]; // Trigger's chunk is loaded, so there's ground to spawn on
+    private boolean[] active = new boolean[0]; // Player came within range while armed
+    private int[] wavesReleased = new int[0];
+    private int[] pending = new int[0]; // Released but not spawned yet, waiting for a cap or the pool
+    private int[] alive = new int[0];
+    private int[] spawnCount = new int[0]; // Seeds each spawn's random stream
+    private TimerWheel.Timer[] waveTimers = new TimerWheel.Timer[0];
+    private final EnemyPool pool;
+
+    // AI scheduler
+    private int farCursor; // Round-robin start for distant enemies, so deferred ones go first next tick
+    private long lastTickNanos, peakTickNanos, totalNanos;
+    private int tickCount;
+    private int nearUpdates, farUpdates, deferred;
+    private float nanosPerEnemy = 20_000; // Smoothed think + commit cost, decides how many distant enemies fit the budget
+    private final Array<Enemy> due = new Array<>(); // Enemies updated this tick
+    private final PerceptionBlackboard blackboard = new PerceptionBlackboard(); // Shared by everything in due
 
 
-    public EnemySpawner(World world, Player player, Set<Body> bulletsToRemove) {
+    public EnemySpawner(World world, BodyStateCache bodyStates, Assets assets, TimerWheel timers, Player player, ProjectileLauncher bullets) {
         this.world = world;
+        this.bodyStates = bodyStates;
+        this.assets = assets;
+        this.timers = timers;
         this.player = player;
-        this.bulletsToRemove = bulletsToRemove;
+        this.bullets = bullets;
+        this.pool = new EnemyPool(Constants.ENEMY_POOL_SIZE,
+            () -> new Enemy(this.world, this.bodyStates, this.assets, store, this.timers, grid, nav, this.player, this.bullets));
+    }
+
+    public void setTileGrid(TileGrid grid) {
+        this.grid = grid;
+    }
+
+    public void setNavGraph(NavGraph nav) {
+        this.nav = nav;
+        pool.prewarm(Constants.ENEMY_POOL_PREWARM); // Everything an Enemy needs is known now
     }
 
-    public void setSpawnPoints(Array<Vector2> points) {
-        this.spawnPoints = points;
-        spawnEnemy();
+    public void setFlowField(FlowField flow) {
+        blackboard.flow = flow;
     }
 
-    public void spawnEnemy() {
-        for (Vector2 pos : spawnPoints) {
-            enemies.add(new Enemy(world, pos.x, pos.y, player, bulletsToRemove));
+    // Single enemies at the level's spawn points, plus its wave triggers
+    public void setSpawnTriggers(Array<Vector2> points, Array<SpawnTrigger> waves) {
+        triggers = new Array<>();
+        for (Vector2 point : points) {
+            triggers.add(new SpawnTrigger(point.x, point.y));
+        }
+        triggers.addAll(waves);
+
+        int count = triggers.size;
+        armed = new boolean[count];
+        active = new boolean[count];
+        wavesReleased = new int[count];
+        pending = new int[count];
+        alive = new int[count];
+        spawnCount = new int[count];
+        waveTimers = new TimerWheel.Timer[count];
+        for (int i = 0; i < count; i++) {
+            final int trigger = i;
+            waveTimers[i] = new TimerWheel.Timer(() -> releaseWave(trigger));
         }
     }
 
-    public void update(float delta, Vector2 playerPosition) {
-        Iterator<Enemy> iterator = enemies.iterator();
-        while(iterator.hasNext()){
-            Enemy enemy = iterator.next();
-            enemy.update(delta, playerPosition);
-            // Check if the enemy is dead and its death animation is finished (or if you no longer need to render it)
-            if(enemy.isShot && enemy.alreadyRendered) {
-                iterator.remove();
+    public int getTriggerCount() {
+        return triggers.size;
+    }
+
+    public SpawnTrigger getTrigger(int index) {
+        return triggers.get(index);
+    }
+
+    /******* Spawn triggers *******/
+
+    // The trigger's chunk has loaded, it may spawn once the player comes near
+    public void arm(int index) {
+        armed[index] = true;
+    }
+
+    // The trigger's chunk is unloading, it stops spawning. Its enemies leave with the chunk they stand in.
+    public void disarm(int index) {
+        armed[index] = false;
+        active[index] = false;
+        timers.cancel(waveTimers[index]);
+    }
+
+    // Living enemies standing in an unloaded chunk go back to the pool and are owed to their trigger again
+    public void despawnUnloaded(ChunkStreamer chunks) {
+        for (int i = store.size - 1; i >= 0; i--) {
+            if (store.shot[i] || chunks.isLoadedAt(store.x[i], store.y[i])) continue; // Dead enemies finish their death animation
+
+            Enemy enemy = store.enemy[i];
+            int trigger = store.trigger[i];
+            store.remove(i);
+            pool.free(enemy);
+            alive[trigger]--;
+            pending[trigger]++;
+        }
+    }
+
+    // GL thread, outside world.step(). The pool may build enemies here, and the first one loads their textures and sounds.
+    public void updateTriggers() {
+        float playerX = player.getX(), playerY = player.getY();
+
+        for (int i = 0; i < triggers.size; i++) {
+            if (!armed[i]) continue;
+            SpawnTrigger trigger = triggers.get(i);
+
+            if (!active[i]) {
+                if (isFinished(i)) continue;
+                float dx = trigger.x - playerX, dy = trigger.y - playerY;
+                if (dx * dx + dy * dy > trigger.radius * trigger.radius) continue;
+
+                active[i] = true;
+                if (wavesReleased[i] == 0) {
+                    releaseWave(i);
+                } else if (wavesReleased[i] < trigger.waves) {
+                    timers.schedule(waveTimers[i], trigger.waveDelay); // Came back, the waves carry on
+                }
+            }
+
+            while (pending[i] > 0 && (trigger.maxAlive <= 0 || alive[i] < trigger.maxAlive)) {
+                Enemy enemy = pool.obtain();
+                if (enemy == null) break; // Pool is dry, try again next tick
+
+                long seed = (Float.floatToIntBits(trigger.x) * 31L + Float.floatToIntBits(trigger.y)) * 31L + spawnCount[i]++;
+                int row = store.add(enemy);
+                store.trigger[row] = i;
+                store.pendingTicks[row] = row % Constants.AI_FAR_INTERVAL; // Spread distant updates over the interval
+                enemy.spawn(trigger.x, trigger.y, seed);
+                pending[i]--;
+                alive[i]++;
             }
         }
-        for (Enemy enemy : enemies) {
-            enemy.update(delta, playerPosition);
+    }
+
+    // Wave timer callback, or the first wave when the player arrives
+    private void releaseWave(int index) {
+        if (!active[index]) return;
+        SpawnTrigger trigger = triggers.get(index);
+
+        pending[index] += trigger.count;
+        wavesReleased[index]++;
+        if (wavesReleased[index] < trigger.waves) {
+            timers.schedule(waveTimers[index], trigger.waveDelay);
         }
+    }
 
+    // Every wave released and every enemy killed, the trigger never fires again
+    private boolean isFinished(int index) {
+        return wavesReleased[index] == triggers.get(index).waves && pending[index] == 0 && alive[index] == 0;
     }
 
-    public void render(SpriteBatch batch) {
-        for (Enemy enemy : enemies) {
-            enemy.render(batch);
+    // Dead enemies keep their body for the pool, it leaves the simulation here. Outside world.step() only.
+    public void parkDeadBodies() {
+        for (int i = 0; i < store.size; i++) {
+            if (store.shot[i]) store.enemy[i].parkBody();
         }
     }
 
-    public void reset() {
-        // First clean up existing enemies
-        for(Enemy enemy : enemies) {
-            enemy.cleanup(); // New method we'll add to Enemy
+    public String getSpawnStats() {
+        int activeCount = 0, finished = 0, waiting = 0;
+        for (int i = 0; i < triggers.size; i++) {
+            if (active[i]) activeCount++;
+            if (isFinished(i)) finished++;
+            waiting += pending[i];
+        }
+        return "Spawning: " + triggers.size + " triggers, " + activeCount + " active, " + finished + " finished, "
+            + waiting + " enemies waiting, pool " + pool;
+    }
+
+    public int getEnemyCount() {
+        return store.size;
+    }
+
+    public int getAwakeCount() {
+        int awake = 0;
+        for (int i = 0; i < store.size; i++) {
+            if (!store.sleeping[i]) awake++;
+        }
+        return awake;
+    }
+
+    // Physics LOD: enemies well outside the view sleep, they wake up before they can be seen
+    public void updateLod(float viewX, float viewY, float viewWidth, float viewHeight) {
+        for (int i = 0; i < store.size; i++) {
+            if (store.shot[i]) continue;
+
+            float dx = Math.abs(store.x[i] - viewX) - viewWidth / 2; // Distance past the view edge
+            float dy = Math.abs(store.y[i] - viewY) - viewHeight / 2;
+            float outside = Math.max(dx, dy);
+
+            if (store.sleeping[i] && outside < Constants.ENEMY_LOD_WAKE_MARGIN) {
+                store.enemy[i].setSleeping(false);
+            } else if (!store.sleeping[i] && outside > Constants.ENEMY_LOD_SLEEP_MARGIN) {
+                store.enemy[i].setSleeping(true);
+            }
+        }
+    }
+
+    // Living enemies for area queries, same rule as projectile targets
+    public void addEntities(SpatialHash entities) {
+        if (store.size == 0) return;
+        float halfWidth = store.enemy[0].getHitboxHalfWidth(), halfHeight = store.enemy[0].getHitboxHalfHeight();
+        for (int i = 0; i < store.size; i++) {
+            if (store.shot[i] || store.sleeping[i]) continue;
+            entities.add(store.x[i], store.y[i], halfWidth, halfHeight, Constants.ENEMY_CATEGORY, store.enemy[i]);
+        }
+    }
+
+    // Living enemies as projectile targets, dead ones have lost their body
+    public void addTargets(ProjectileEngine projectiles) {
+        if (store.size == 0) return;
+        float halfWidth = store.enemy[0].getHitboxHalfWidth(), halfHeight = store.enemy[0].getHitboxHalfHeight(); // Same for all
+        for (int i = 0; i < store.size; i++) {
+            if (store.shot[i] || store.sleeping[i]) continue;
+            projectiles.addTarget(store.x[i], store.y[i], halfWidth, halfHeight, Constants.ENEMY_CATEGORY, store.enemy[i]);
+        }
+    }
+
+    /******* AI scheduler *******/
+
+    // Enemies near the player think every tick, distant ones every AI_FAR_INTERVAL ticks while the budget lasts.
+    // Thinking runs in parallel against the perception blackboard, committing runs here in list order.
+    public void update(float delta) {
+        long start = System.nanoTime();
+        nearUpdates = farUpdates = deferred = 0;
+        due.clear();
+
+        store.gather(bodyStates);
+
+        // Near and dying enemies always get their update
+        for (int i = 0; i < store.size; i++) {
+            if (store.sleeping[i]) continue; // AI is paused along with the body
+
+            store.pendingTime[i] += delta;
+            store.pendingTicks[i]++;
+            if (store.shot[i] || isNear(i)) {
+                due.add(store.enemy[i]);
+                nearUpdates++;
+            }
+        }
+
+        // Distant enemies that are due, as many as the budget is expected to cover.
+        // Round-robin so the ones that didn't fit go first next tick.
+        long budgetLeft = Constants.AI_BUDGET_NANOS - (long) (nanosPerEnemy * due.size);
+        int count = store.size;
+        int nextCursor = farCursor;
+        boolean overBudget = false;
+        for (int k = 0; k < count; k++) {
+            int i = (farCursor + k) % count;
+            if (store.sleeping[i] || store.shot[i] || isNear(i)
+                || store.pendingTicks[i] < Constants.AI_FAR_INTERVAL) continue;
+
+            if (overBudget || budgetLeft < nanosPerEnemy) {
+                if (!overBudget) nextCursor = i;
+                overBudget = true;
+                deferred++;
+                continue;
+            }
+            budgetLeft -= (long) nanosPerEnemy;
+            due.add(store.enemy[i]);
+            farUpdates++;
+        }
+        farCursor = count > 0 ? nextCursor % count : 0;
+
+        // Think: read-only towards everything but the enemy itself
+        blackboard.update(player, due, grid, nav);
+        if (due.size >= Constants.AI_PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new ThinkTask(due, 0, due.size, blackboard));
+        } else {
+            think(due, 0, due.size, blackboard);
+        }
+
+        // Commit: velocities, shots and sounds, in a fixed order
+        for (int i = 0; i < due.size; i++) {
+            int row = due.get(i).row;
+            due.get(i).commit(store.pendingTime[row]); // Distant enemies catch up on everything they skipped
+            store.pendingTime[row] = 0;
+            store.pendingTicks[row] = 0;
+        }
+
+        // Dead enemies leave once their death animation is done
+        for (int i = store.size - 1; i >= 0; i--) {
+            Enemy enemy = store.enemy[i];
+            if (store.shot[i] && enemy.alreadyRendered) {
+                alive[store.trigger[i]]--;
+                store.remove(i);
+                pool.free(enemy);
+            }
         }
-        enemies.clear();
 
-        // Re-spawn fresh enemies
-        spawnEnemy();
+        lastTickNanos = System.nanoTime() - start;
+        peakTickNanos = Math.max(peakTickNanos, lastTickNanos);
+        totalNanos += lastTickNanos;
+        tickCount++;
+        if (due.size > 0) {
+            nanosPerEnemy += (lastTickNanos / (float) due.size - nanosPerEnemy) * 0.1f; // Smoothed cost estimate
+        }
+    }
+
+    private boolean isNear(int row) {
+        return Math.abs(store.x[row] - player.getX()) < Constants.AI_NEAR_DISTANCE
+            && Math.abs(store.y[row] - player.getY()) < Constants.AI_NEAR_DISTANCE;
+    }
+
+    private static void think(Array<Enemy> enemies, int from, int to, PerceptionBlackboard perception) {
+        for (int i = from; i < to; i++) {
+            Enemy enemy = enemies.get(i);
+            enemy.think(enemy.store.pendingTime[enemy.row], perception);
+        }
     }
-    private void cleanupWorldBodies() {
-        // Optional: Clean up any remaining bullets
-        for(Enemy enemy : enemies) {
-            for(EnemyBullet bullet : enemy.bullets) {
-                bullet.markForRemoval();
+
+    // Splits the think phase in halves until the pieces are small enough to run on one worker
+    @SuppressWarnings("serial") // Never serialized, RecursiveAction just happens to be Serializable
+    private static class ThinkTask extends RecursiveAction {
+        private final Array<Enemy> enemies;
+        private final int from, to;
+        private final PerceptionBlackboard perception;
+
+        ThinkTask(Array<Enemy> enemies, int from, int to, PerceptionBlackboard perception) {
+            this.enemies = enemies;
+            this.from = from;
+            this.to = to;
+            this.perception = perception;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= Constants.AI_PARALLEL_THRESHOLD) {
+                think(enemies, from, to, perception);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ThinkTask(enemies, from, middle, perception),
+                    new ThinkTask(enemies, middle, to, perception));
             }
         }
     }
+
+    // Budget use of the last tick, plus average and peak since the last call
+    public String getSchedulerStats() {
+        float budget = Constants.AI_BUDGET_NANOS;
+        String stats = String.format("AI: %d near, %d distant, %d deferred, budget used %.0f%% (avg %.0f%%, peak %.0f%%)",
+            nearUpdates, farUpdates, deferred, 100 * lastTickNanos / budget,
+            tickCount > 0 ? 100 * totalNanos / tickCount / budget : 0f, 100 * peakTickNanos / budget);
+        peakTickNanos = totalNanos = tickCount = 0;
+        return stats;
+    }
+
+    public void snapshot(RenderSnapshot snapshot) {
+        for (int i = 0; i < store.size; i++) {
+            store.enemy[i].snapshot(snapshot);
+        }
+    }
+
+    // Every enemy back to the pool and every trigger as at level start, loaded chunks stay armed
+    public void reset() {
+        while (store.size > 0) {
+            Enemy enemy = store.enemy[store.size - 1];
+            store.remove(store.size - 1);
+            pool.free(enemy);
+        }
+        for (int i = 0; i < triggers.size; i++) {
+            timers.cancel(waveTimers[i]);
+            active[i] = false;
+            wavesReleased[i] = pending[i] = alive[i] = spawnCount[i] = 0;
+        }
+    }
+
+    // Every enemy built for this level gives back its shared assets, bodies go with the world
+    public void dispose() {
+        for (int i = 0; i < store.size; i++) {
+            store.enemy[i].dispose();
+        }
+        pool.dispose();
+    }
 }
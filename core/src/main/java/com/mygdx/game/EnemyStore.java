@@ -0,0 +1,184 @@
+package com.mygdx.game;
+
+/**
+ * Hot per-enemy state in parallel primitive arrays, one dense row per spawned enemy.
+ * The spawner's per-tick loops (scheduling, physics LOD, projectile targets, dead body parking)
+ * walk these arrays front to back instead of hopping between Enemy objects, and Enemy reads and
+ * writes its own row for everything think(), commit() and snapshot() touch every tick, animation
+ * state included. The Enemy object keeps its body, timers, random stream, sounds and what only
+ * changes on spawn or death.
+ * Rows move when another row is removed, the moved enemy's row index is updated here.
+ */
+public class EnemyStore {
+
+    public int size;
+    public Enemy[] enemy;
+
+    // Copied from the BodyStateCache once per tick, so loops over enemies stay in one place
+    public float[] x, y;
+    public float[] velocityX, velocityY;
+    public int[] bodySlot; // -1 once dead, the position stays where the enemy died
+
+    public byte[] state; // Enemy.State ordinal
+    public boolean[] shot, sleeping, facingLeft;
+    public int[] navSurface; // Last NavGraph surface stood on
+    public int[] trigger; // Spawn trigger the enemy came from
+
+    // AI scheduler: time and ticks since the enemy's last update
+    public float[] pendingTime;
+    public int[] pendingTicks;
+
+    // Perception and behaviour, see Enemy.think
+    public float[] perceptionTimer, perceptionDelta; // Detection runs a few times a second, at a random phase
+    public float[] reactionTime, delay;
+    public boolean[] moving, firing, playerDetected;
+    public float[] patrolTargetX, patrolTargetY;
+    public float[] chaseLandingX; // Where the current jump or drop should end, NaN when not taking one
+
+    // Decided in think(), applied in commit()
+    public boolean[] moveIntent, shootIntent;
+    public float[] moveVelocityX, moveVelocityY, impulseIntent;
+    public float[] shotCooldownIntent, patrolCooldownIntent, chaseTimeoutIntent; // Seconds, 0 for no change
+
+    // Animation: Assets ids and how long each has been playing, the time goes back to 0 when the id changes
+    public int[] bodyAnimation, gunAnimation;
+    public float[] bodyAnimationTime, gunAnimationTime;
+    public float[] bubbleTime; // Detection bubble, negative until the player is first spotted
+
+    public EnemyStore(int capacity) {
+        allocate(Math.max(capacity, 16));
+    }
+
+    private void allocate(int capacity) {
+        enemy = copy(enemy, new Enemy[capacity]);
+        x = copy(x, new float[capacity]);
+        y = copy(y, new float[capacity]);
+        velocityX = copy(velocityX, new float[capacity]);
+        velocityY = copy(velocityY, new float[capacity]);
+        bodySlot = copy(bodySlot, new int[capacity]);
+        state = copy(state, new byte[capacity]);
+        shot = copy(shot, new boolean[capacity]);
+        sleeping = copy(sleeping, new boolean[capacity]);
+        facingLeft = copy(facingLeft, new boolean[capacity]);
+        navSurface = copy(navSurface, new int[capacity]);
+        trigger = copy(trigger, new int[capacity]);
+        pendingTime = copy(pendingTime, new float[capacity]);
+        pendingTicks = copy(pendingTicks, new int[capacity]);
+        perceptionTimer = copy(perceptionTimer, new float[capacity]);
+        perceptionDelta = copy(perceptionDelta, new float[capacity]);
+        reactionTime = copy(reactionTime, new float[capacity]);
+        delay = copy(delay, new float[capacity]);
+        moving = copy(moving, new boolean[capacity]);
+        firing = copy(firing, new boolean[capacity]);
+        playerDetected = copy(playerDetected, new boolean[capacity]);
+        patrolTargetX = copy(patrolTargetX, new float[capacity]);
+        patrolTargetY = copy(patrolTargetY, new float[capacity]);
+        chaseLandingX = copy(chaseLandingX, new float[capacity]);
+        moveIntent = copy(moveIntent, new boolean[capacity]);
+        shootIntent = copy(shootIntent, new boolean[capacity]);
+        moveVelocityX = copy(moveVelocityX, new float[capacity]);
+        moveVelocityY = copy(moveVelocityY, new float[capacity]);
+        impulseIntent = copy(impulseIntent, new float[capacity]);
+        shotCooldownIntent = copy(shotCooldownIntent, new float[capacity]);
+        patrolCooldownIntent = copy(patrolCooldownIntent, new float[capacity]);
+        chaseTimeoutIntent = copy(chaseTimeoutIntent, new float[capacity]);
+        bodyAnimation = copy(bodyAnimation, new int[capacity]);
+        gunAnimation = copy(gunAnimation, new int[capacity]);
+        bodyAnimationTime = copy(bodyAnimationTime, new float[capacity]);
+        gunAnimationTime = copy(gunAnimationTime, new float[capacity]);
+        bubbleTime = copy(bubbleTime, new float[capacity]);
+    }
+
+    private <T> T copy(T from, T to) {
+        if (from != null) System.arraycopy(from, 0, to, 0, size);
+        return to;
+    }
+
+    // New row with everything cleared, enemy may be null for headless benchmarks
+    public int add(Enemy owner) {
+        if (size == enemy.length) allocate(size * 2);
+        int row = size++;
+        enemy[row] = owner;
+        x[row] = y[row] = velocityX[row] = velocityY[row] = 0;
+        bodySlot[row] = -1;
+        state[row] = 0;
+        shot[row] = sleeping[row] = facingLeft[row] = false;
+        navSurface[row] = -1;
+        trigger[row] = -1;
+        pendingTime[row] = 0;
+        pendingTicks[row] = 0;
+        perceptionTimer[row] = perceptionDelta[row] = reactionTime[row] = delay[row] = 0;
+        moving[row] = firing[row] = playerDetected[row] = false;
+        patrolTargetX[row] = patrolTargetY[row] = 0;
+        chaseLandingX[row] = Float.NaN;
+        moveIntent[row] = shootIntent[row] = false;
+        moveVelocityX[row] = moveVelocityY[row] = impulseIntent[row] = 0;
+        shotCooldownIntent[row] = patrolCooldownIntent[row] = chaseTimeoutIntent[row] = 0;
+        bodyAnimation[row] = gunAnimation[row] = -1;
+        bodyAnimationTime[row] = gunAnimationTime[row] = 0;
+        bubbleTime[row] = -1;
+        if (owner != null) owner.row = row;
+        return row;
+    }
+
+    // Swap-removes the row, the last row moves into it
+    public void remove(int row) {
+        Enemy removed = enemy[row];
+        if (removed != null) removed.row = -1;
+
+        int last = --size;
+        if (row != last) {
+            enemy[row] = enemy[last];
+            x[row] = x[last];
+            y[row] = y[last];
+            velocityX[row] = velocityX[last];
+            velocityY[row] = velocityY[last];
+            bodySlot[row] = bodySlot[last];
+            state[row] = state[last];
+            shot[row] = shot[last];
+            sleeping[row] = sleeping[last];
+            facingLeft[row] = facingLeft[last];
+            navSurface[row] = navSurface[last];
+            trigger[row] = trigger[last];
+            pendingTime[row] = pendingTime[last];
+            pendingTicks[row] = pendingTicks[last];
+            perceptionTimer[row] = perceptionTimer[last];
+            perceptionDelta[row] = perceptionDelta[last];
+            reactionTime[row] = reactionTime[last];
+            delay[row] = delay[last];
+            moving[row] = moving[last];
+            firing[row] = firing[last];
+            playerDetected[row] = playerDetected[last];
+            patrolTargetX[row] = patrolTargetX[last];
+            patrolTargetY[row] = patrolTargetY[last];
+            chaseLandingX[row] = chaseLandingX[last];
+            moveIntent[row] = moveIntent[last];
+            shootIntent[row] = shootIntent[last];
+            moveVelocityX[row] = moveVelocityX[last];
+            moveVelocityY[row] = moveVelocityY[last];
+            impulseIntent[row] = impulseIntent[last];
+            shotCooldownIntent[row] = shotCooldownIntent[last];
+            patrolCooldownIntent[row] = patrolCooldownIntent[last];
+            chaseTimeoutIntent[row] = chaseTimeoutIntent[last];
+            bodyAnimation[row] = bodyAnimation[last];
+            gunAnimation[row] = gunAnimation[last];
+            bodyAnimationTime[row] = bodyAnimationTime[last];
+            gunAnimationTime[row] = gunAnimationTime[last];
+            bubbleTime[row] = bubbleTime[last];
+            if (enemy[row] != null) enemy[row].row = row;
+        }
+        enemy[last] = null;
+    }
+
+    // After the body cache refresh
+    public void gather(BodyStateCache bodies) {
+        for (int i = 0; i < size; i++) {
+            int slot = bodySlot[i];
+            if (slot < 0) continue;
+            x[i] = bodies.x[slot];
+            y[i] = bodies.y[slot];
+            velocityX[i] = bodies.velocityX[slot];
+            velocityY[i] = bodies.velocityY[slot];
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.mygdx.game;
+
+import java.util.Arrays;
+
+/**
+ * Path distance to the player from every walkable tile, shared by all chasing enemies.
+ * Tiles are the NavGraph surfaces cut into cells, linked by walking to the next cell and by the
+ * NavGraph's jumps and drops. An enemy steps along the link that leads downhill in distance.
+ *
+ * Kept up to date LPA* style: g is the settled distance, rhs the best one from the successors.
+ * When the player moves to another tile only the tiles whose distance no longer matches are
+ * processed, and only out to FLOW_FIELD_RANGE, so a tick costs the tiles that changed rather
+ * than one search per enemy. Written on the sim thread, read-only while enemies think.
+ */
+public class FlowField {
+
+    public static final int WALK = 2; // Link type next to NavGraph.JUMP and NavGraph.DROP
+    private static final float UNREACHED = Float.POSITIVE_INFINITY;
+
+    private final TileGrid grid;
+    private final float range;
+
+    // Nodes, one per walkable tile
+    private final int nodeCount;
+    private final int[] cellNode; // Node per tile, -1 if not walkable
+    private final float[] nodeX; // Tile center, meters
+
+    // Links, outgoing ones sorted by source and incoming ones listed per target
+    private int[] linkTo, linkType;
+    private float[] linkCost;
+    private int[] firstLink; // Per node, links are firstLink[n] until firstLink[n + 1]
+    private int[] incoming, firstIncoming; // Indices into the link arrays, grouped by target
+
+    private final float[] g, rhs;
+    private final IndexedHeap queue;
+    private int target = -1;
+
+    // Stats
+    public int targetMoves, lastProcessed;
+    public long processed, updateNanos;
+
+    public FlowField(NavGraph nav, TileGrid grid, float range) {
+        this.grid = grid;
+        this.range = range;
+
+        cellNode = new int[grid.width * grid.height];
+        Arrays.fill(cellNode, -1);
+        int count = 0;
+        for (int s = 0; s < nav.getSurfaceCount(); s++) {
+            count += nav.getSurfaceLastColumn(s) - nav.getSurfaceFirstColumn(s) + 1;
+        }
+        nodeCount = count;
+        nodeX = new float[nodeCount];
+
+        int node = 0;
+        for (int s = 0; s < nav.getSurfaceCount(); s++) {
+            int row = nav.getSurfaceRow(s);
+            for (int x = nav.getSurfaceFirstColumn(s); x <= nav.getSurfaceLastColumn(s); x++) {
+                cellNode[row * grid.width + x] = node;
+                nodeX[node] = (x + 0.5f) * grid.tileWidth;
+                node++;
+            }
+        }
+
+        buildLinks(nav);
+
+        g = new float[nodeCount];
+        rhs = new float[nodeCount];
+        Arrays.fill(g, UNREACHED);
+        Arrays.fill(rhs, UNREACHED);
+        queue = new IndexedHeap(nodeCount);
+    }
+
+    private void buildLinks(NavGraph nav) {
+        // Walking: each cell to its neighbours on the same surface
+        int walkLinks = 0;
+        for (int s = 0; s < nav.getSurfaceCount(); s++) {
+            walkLinks += 2 * (nav.getSurfaceLastColumn(s) - nav.getSurfaceFirstColumn(s));
+        }
+        int linkCount = walkLinks + nav.getEdgeCount();
+        int[] from = new int[linkCount];
+        int[] to = new int[linkCount];
+        int[] type = new int[linkCount];
+        float[] cost = new float[linkCount];
+
+        int l = 0;
+        for (int s = 0; s < nav.getSurfaceCount(); s++) {
+            int row = nav.getSurfaceRow(s);
+            for (int x = nav.getSurfaceFirstColumn(s); x < nav.getSurfaceLastColumn(s); x++) {
+                int left = cellNode[row * grid.width + x];
+                int right = left + 1;
+                from[l] = left; to[l] = right; type[l] = WALK; cost[l] = grid.tileWidth; l++;
+                from[l] = right; to[l] = left; type[l] = WALK; cost[l] = grid.tileWidth; l++;
+            }
+        }
+
+        // Jumps and drops, from the take-off tile to the landing tile
+        for (int e = 0; e < nav.getEdgeCount(); e++) {
+            int takeoff = cellNode[nav.getSurfaceRow(nav.getEdgeFrom(e)) * grid.width + grid.tileX(nav.getTakeoffX(e))];
+            int landing = cellNode[nav.getSurfaceRow(nav.getEdgeTo(e)) * grid.width + grid.tileX(nav.getLandingX(e))];
+            float dx = nav.getLandingX(e) - nav.getTakeoffX(e);
+            float dy = (nav.getSurfaceRow(nav.getEdgeTo(e)) - nav.getSurfaceRow(nav.getEdgeFrom(e))) * grid.tileHeight;
+            from[l] = takeoff;
+            to[l] = landing;
+            type[l] = nav.getEdgeType(e);
+            cost[l] = (float) Math.sqrt(dx * dx + dy * dy)
+                + (type[l] == NavGraph.JUMP ? NavGraph.JUMP_COST : NavGraph.DROP_COST);
+            l++;
+        }
+
+        // Counting sort by source for the outgoing lists, by target for the incoming ones
+        firstLink = new int[nodeCount + 1];
+        firstIncoming = new int[nodeCount + 1];
+        for (int i = 0; i < linkCount; i++) {
+            firstLink[from[i] + 1]++;
+            firstIncoming[to[i] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            firstLink[n + 1] += firstLink[n];
+            firstIncoming[n + 1] += firstIncoming[n];
+        }
+
+        linkTo = new int[linkCount];
+        linkType = new int[linkCount];
+        linkCost = new float[linkCount];
+        incoming = new int[linkCount];
+        int[] linkFrom = new int[linkCount];
+        int[] fillOut = new int[nodeCount];
+        int[] fillIn = new int[nodeCount];
+        for (int i = 0; i < linkCount; i++) {
+            int out = firstLink[from[i]] + fillOut[from[i]]++;
+            linkTo[out] = to[i];
+            linkType[out] = type[i];
+            linkCost[out] = cost[i];
+            linkFrom[out] = from[i];
+        }
+        for (int out = 0; out < linkCount; out++) {
+            int n = linkTo[out];
+            incoming[firstIncoming[n] + fillIn[n]++] = linkFrom[out];
+        }
+    }
+
+    /******* Updating, sim thread only *******/
+
+    // Moves the field's zero to the given tile and repairs the distances that changed
+    public void setTarget(int node) {
+        if (node < 0 || node == target) return;
+
+        long start = System.nanoTime();
+        int previous = target;
+        target = node;
+        if (previous >= 0) updateNode(previous);
+        updateNode(target);
+
+        lastProcessed = 0;
+        while (queue.size > 0 && queue.peekKey() <= range) {
+            int n = queue.pop();
+            lastProcessed++;
+            if (g[n] > rhs[n]) {
+                g[n] = rhs[n]; // Got closer, settle it
+            } else {
+                g[n] = UNREACHED; // Got further, reopen it and let its successors decide
+                updateNode(n);
+            }
+            for (int i = firstIncoming[n]; i < firstIncoming[n + 1]; i++) {
+                updateNode(incoming[i]);
+            }
+        }
+
+        targetMoves++;
+        processed += lastProcessed;
+        updateNanos += System.nanoTime() - start;
+    }
+
+    private void updateNode(int n) {
+        if (n == target) {
+            rhs[n] = 0;
+        } else {
+            float best = UNREACHED;
+            for (int l = firstLink[n]; l < firstLink[n + 1]; l++) {
+                best = Math.min(best, linkCost[l] + g[linkTo[l]]);
+            }
+            rhs[n] = best;
+        }
+
+        if (g[n] != rhs[n]) {
+            queue.update(n, Math.min(g[n], rhs[n]));
+        } else {
+            queue.remove(n);
+        }
+    }
+
+    /******* Queries, safe from any thread between updates *******/
+
+    public int nodeAt(float x, float feetY) {
+        int tileX = grid.tileX(x);
+        int tileY = grid.tileY(feetY + grid.tileHeight * 0.25f);
+        if (tileX < 0 || tileY < 0 || tileX >= grid.width || tileY >= grid.height) return -1;
+        return cellNode[tileY * grid.width + tileX];
+    }
+
+    // Like nodeAt, but looks down up to maxRows tiles, for targets that are jumping
+    public int nodeBelow(float x, float feetY, int maxRows) {
+        int tileX = grid.tileX(x);
+        int tileY = grid.tileY(feetY + grid.tileHeight * 0.25f);
+        if (tileX < 0 || tileX >= grid.width) return -1;
+        for (int y = Math.min(tileY, grid.height - 1); y >= 0 && y > tileY - maxRows; y--) {
+            if (grid.isSolid(tileX, y)) return -1;
+            int node = cellNode[y * grid.width + tileX];
+            if (node >= 0) return node;
+        }
+        return -1;
+    }
+
+    // Path distance to the player, infinite past FLOW_FIELD_RANGE or without a way there
+    public float getDistance(int node) {
+        return g[node] <= range ? g[node] : UNREACHED;
+    }
+
+    // Link to take towards the player, -1 at the player's tile or out of the field
+    public int nextLink(int node) {
+        if (node == target || g[node] > range) return -1;
+
+        int best = -1;
+        float bestDistance = UNREACHED;
+        for (int l = firstLink[node]; l < firstLink[node + 1]; l++) {
+            float distance = linkCost[l] + g[linkTo[l]];
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = l;
+            }
+        }
+        return best;
+    }
+
+    public int getLinkTarget(int link) {
+        return linkTo[link];
+    }
+
+    public int getLinkType(int link) {
+        return linkType[link];
+    }
+
+    public float getNodeX(int node) {
+        return nodeX[node];
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return nodeCount + " tiles, " + linkTo.length + " links, " + targetMoves + " target moves, "
+            + (targetMoves > 0 ? processed / targetMoves : 0) + " tiles processed per move (last " + lastProcessed + "), "
+            + (targetMoves > 0 ? updateNanos / targetMoves / 1000 : 0) + " us per move";
+    }
+
+    // Binary min-heap of nodes with a position index, so keys can change in place
+    private static class IndexedHeap {
+        private final int[] items;
+        private final float[] keys;
+        private final int[] position; // Per node, -1 when not queued
+        int size;
+
+        IndexedHeap(int capacity) {
+            items = new int[capacity];
+            keys = new float[capacity];
+            position = new int[capacity];
+            Arrays.fill(position, -1);
+        }
+
+        float peekKey() {
+            return keys[0];
+        }
+
+        void update(int item, float key) {
+            int i = position[item];
+            if (i < 0) {
+                i = size++;
+                items[i] = item;
+                position[item] = i;
+            } else if (key > keys[i]) {
+                keys[i] = key;
+                siftDown(i);
+                return;
+            }
+            keys[i] = key;
+            siftUp(i);
+        }
+
+        void remove(int item) {
+            int i = position[item];
+            if (i < 0) return;
+            position[item] = -1;
+            size--;
+            if (i == size) return;
+            int moved = items[size];
+            items[i] = moved;
+            keys[i] = keys[size];
+            position[moved] = i;
+            siftUp(i);
+            siftDown(position[moved]);
+        }
+
+        int pop() {
+            int top = items[0];
+            remove(top);
+            return top;
+        }
+
+        private void siftUp(int i) {
+            int item = items[i];
+            float key = keys[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                move(parent, i);
+                i = parent;
+            }
+            items[i] = item;
+            keys[i] = key;
+            position[item] = i;
+        }
+
+        private void siftDown(int i) {
+            int item = items[i];
+            float key = keys[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= key) break;
+                move(child, i);
+                i = child;
+            }
+            items[i] = item;
+            keys[i] = key;
+            position[item] = i;
+        }
+
+        private void move(int from, int to) {
+            items[to] = items[from];
+            keys[to] = keys[from];
+            position[items[to]] = to;
+        }
+    }
+}
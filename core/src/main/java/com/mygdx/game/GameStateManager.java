@@ -4,6 +4,7 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 
 public class GameStateManager {
     private GameState currentState; // Refers to the ABSTRACT GameState class
+    public final Assets assets = new Assets(); // Shared by every state, outlives them
 
     public GameStateManager() {
         // Empty constructor (no args needed)
@@ -32,5 +33,6 @@ public class GameStateManager {
         if (currentState != null) {
             currentState.dispose();
         }
+        assets.dispose();
     }
 }
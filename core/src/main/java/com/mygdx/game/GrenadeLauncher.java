@@ -0,0 +1,150 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Thrown grenades: a few lobbed points that bounce off the TileGrid and explode when their fuse
+ * runs out. The explosion asks the SpatialHash for everything within GRENADE_RADIUS and reports
+ * each hit it can see through the same HitListener as the projectiles, so no Box2D bodies or sensors are involved.
+ * update() must run after the hash has been rebuilt for the tick.
+ */
+public class GrenadeLauncher {
+
+    private final TimerWheel timers;
+    private final SpatialHash entities;
+    private final ProjectileEngine.HitListener listener;
+    private final int grenadeAnimation, explosionAnimation; // Assets ids
+    private final float explosionDuration;
+    private TileGrid grid;
+
+    // Grenades in flight, a slot is free while neither its fuse is pending nor it is exploding
+    private final float[] x = new float[Constants.MAX_GRENADES], y = new float[Constants.MAX_GRENADES];
+    private final float[] prevX = new float[Constants.MAX_GRENADES], prevY = new float[Constants.MAX_GRENADES];
+    private final float[] velocityX = new float[Constants.MAX_GRENADES], velocityY = new float[Constants.MAX_GRENADES];
+    private final boolean[] exploding = new boolean[Constants.MAX_GRENADES];
+    private final TimerWheel.Timer[] fuses = new TimerWheel.Timer[Constants.MAX_GRENADES];
+
+    // Explosions left on screen
+    private final float[] explosionX = new float[Constants.MAX_GRENADES], explosionY = new float[Constants.MAX_GRENADES];
+    private final float[] explosionTime = new float[Constants.MAX_GRENADES];
+
+    private final IntArray hits = new IntArray();
+
+    // Stats
+    public int thrown, exploded, enemiesHit;
+
+    public GrenadeLauncher(TimerWheel timers, SpatialHash entities, ProjectileEngine.HitListener listener,
+                           int grenadeAnimation, int explosionAnimation, float explosionDuration) {
+        this.timers = timers;
+        this.entities = entities;
+        this.listener = listener;
+        this.grenadeAnimation = grenadeAnimation;
+        this.explosionAnimation = explosionAnimation;
+        this.explosionDuration = explosionDuration;
+        for (int i = 0; i < Constants.MAX_GRENADES; i++) {
+            final int slot = i;
+            fuses[i] = new TimerWheel.Timer(() -> exploding[slot] = true); // Goes off in update(), once the hash is current
+        }
+    }
+
+    public void setTileGrid(TileGrid grid) {
+        this.grid = grid;
+    }
+
+    // False when every grenade is already in the air
+    public boolean throwGrenade(float x, float y, float velocityX, float velocityY) {
+        for (int i = 0; i < Constants.MAX_GRENADES; i++) {
+            if (fuses[i].isPending() || exploding[i]) continue;
+            this.x[i] = prevX[i] = x;
+            this.y[i] = prevY[i] = y;
+            this.velocityX[i] = velocityX;
+            this.velocityY[i] = velocityY;
+            timers.schedule(fuses[i], Constants.GRENADE_FUSE);
+            thrown++;
+            return true;
+        }
+        return false;
+    }
+
+    public void update(float delta) {
+        for (int i = 0; i < Constants.MAX_GRENADES; i++) {
+            if (explosionTime[i] > 0) explosionTime[i] -= delta;
+
+            if (exploding[i]) {
+                explode(i);
+            } else if (fuses[i].isPending()) {
+                move(i, delta);
+            }
+        }
+    }
+
+    // Gravity, then each axis on its own so a grenade can slide along a floor or bounce off a wall
+    private void move(int i, float delta) {
+        prevX[i] = x[i];
+        prevY[i] = y[i];
+        velocityY[i] += Constants.GRAVITY * delta;
+
+        float nextX = x[i] + velocityX[i] * delta;
+        if (grid != null && grid.isSolidAt(nextX, y[i])) {
+            velocityX[i] = -velocityX[i] * Constants.GRENADE_BOUNCE;
+        } else {
+            x[i] = nextX;
+        }
+
+        float nextY = y[i] + velocityY[i] * delta;
+        if (grid != null && grid.isSolidAt(x[i], nextY)) {
+            velocityY[i] = -velocityY[i] * Constants.GRENADE_BOUNCE;
+            velocityX[i] *= Constants.GRENADE_BOUNCE; // Rolls to a stop on the ground
+        } else {
+            y[i] = nextY;
+        }
+    }
+
+    private void explode(int i) {
+        exploding[i] = false;
+        exploded++;
+
+        entities.queryRadius(x[i], y[i], Constants.GRENADE_RADIUS, Constants.ENEMY_CATEGORY, hits);
+        for (int k = 0; k < hits.size; k++) {
+            int entity = hits.get(k);
+            // Walls and floors shield whatever is behind them from the blast
+            if (grid != null && !grid.hasLineOfSight(x[i], y[i], entities.getX(entity), entities.getY(entity))) continue;
+            listener.projectileHit(Constants.BULLET_CATEGORY, entities.getCategory(entity), entities.getData(entity));
+            enemiesHit++;
+        }
+
+        explosionX[i] = x[i];
+        explosionY[i] = y[i];
+        explosionTime[i] = explosionDuration;
+    }
+
+    // Drops every grenade and explosion, when the level restarts or the player respawns
+    public void cancel() {
+        for (int i = 0; i < Constants.MAX_GRENADES; i++) {
+            timers.cancel(fuses[i]);
+            exploding[i] = false;
+            explosionTime[i] = 0;
+        }
+    }
+
+    public void snapshot(RenderSnapshot snapshot) {
+        float size = 16 / Constants.PPM;
+        for (int i = 0; i < Constants.MAX_GRENADES; i++) {
+            if (fuses[i].isPending()) {
+                snapshot.addSprite(grenadeAnimation, 0, true, false,
+                    prevX[i] - size / 2, prevY[i] - size / 2, x[i] - size / 2, y[i] - size / 2, size, size);
+            }
+            if (explosionTime[i] > 0) {
+                float radius = Constants.GRENADE_RADIUS;
+                float stateTime = explosionDuration - explosionTime[i];
+                snapshot.addSprite(explosionAnimation, stateTime, false, false, explosionX[i] - radius, explosionY[i] - radius,
+                    explosionX[i] - radius, explosionY[i] - radius, 2 * radius, 2 * radius);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "thrown " + thrown + ", exploded " + exploded + ", enemies hit " + enemiesHit;
+    }
+}
@@ -0,0 +1,121 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
+import com.badlogic.gdx.physics.box2d.World;
+
+/**
+ * Instant weapon: one World.rayCast from the muzzle up to RAMBO_BULLET_DISTANCE resolves the
+ * first tile or target on the spot, so firing adds no bodies at all. Targets the filter turns
+ * down, like enemies already shot, let the ray through.
+ * Only a short tracer is left behind for rendering.
+ * Must not be fired inside world.step(), the world is locked there.
+ */
+public class HitscanLauncher implements ProjectileLauncher, RayCastCallback {
+
+    private static final int MAX_TRACERS = 16;
+
+    public interface TargetFilter {
+        boolean canHit(Fixture fixture);
+    }
+
+    private final World world;
+    private final short category, mask;
+    private final ProjectileEngine.HitListener listener;
+    private final TargetFilter filter;
+    private final int tracerAnimation; // Assets id
+
+    // Closest hit of the ray being cast
+    private Fixture closestFixture;
+    private float closestFraction;
+    private final Vector2 from = new Vector2(), to = new Vector2();
+
+    // Tracers, oldest one gets replaced when all are in use
+    private final float[] tracerStartX = new float[MAX_TRACERS], tracerEndX = new float[MAX_TRACERS];
+    private final float[] tracerY = new float[MAX_TRACERS], tracerTime = new float[MAX_TRACERS];
+    private int nextTracer;
+
+    // Stats
+    public int fired, hits, tileHits, misses;
+
+    public HitscanLauncher(World world, short category, short mask, ProjectileEngine.HitListener listener,
+                           TargetFilter filter, int tracerAnimation) {
+        this.world = world;
+        this.category = category;
+        this.mask = mask;
+        this.listener = listener;
+        this.filter = filter;
+        this.tracerAnimation = tracerAnimation;
+    }
+
+    @Override
+    public boolean fire(float x, float y, boolean isFacingLeft) {
+        // Same muzzle as the Box2D bullets
+        from.set(x + (isFacingLeft ? -Constants.RAMBO_BULLET_XOFFSET : Constants.RAMBO_BULLET_XOFFSET),
+            y - Constants.RAMBO_BULLET_YOFFSET);
+        to.set(from.x + (isFacingLeft ? -Constants.RAMBO_BULLET_DISTANCE : Constants.RAMBO_BULLET_DISTANCE), from.y);
+
+        closestFixture = null;
+        closestFraction = 1f;
+        if (!from.epsilonEquals(to)) world.rayCast(this, from, to);
+        fired++;
+
+        float endX = from.x + (to.x - from.x) * closestFraction;
+        if (closestFixture == null) {
+            misses++;
+        } else {
+            short targetCategory = closestFixture.getFilterData().categoryBits;
+            if (targetCategory == Constants.TILE_CATEGORY) {
+                tileHits++;
+            } else {
+                hits++;
+                listener.projectileHit(category, targetCategory, closestFixture.getUserData());
+            }
+        }
+
+        addTracer(from.x, endX, from.y);
+        return true;
+    }
+
+    // Keeps the closest fixture our mask collides with and the filter lets through, everything else is ignored
+    @Override
+    public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
+        if ((fixture.getFilterData().categoryBits & mask) == 0) return -1;
+        if (!filter.canHit(fixture)) return -1;
+        closestFixture = fixture;
+        closestFraction = fraction;
+        return fraction; // Clip the ray so only closer fixtures are reported
+    }
+
+    private void addTracer(float startX, float endX, float y) {
+        int i = nextTracer;
+        nextTracer = (nextTracer + 1) % MAX_TRACERS;
+        tracerStartX[i] = startX;
+        tracerEndX[i] = endX;
+        tracerY[i] = y;
+        tracerTime[i] = Constants.HITSCAN_TRACER_DURATION;
+    }
+
+    public void update(float delta) {
+        for (int i = 0; i < MAX_TRACERS; i++) {
+            if (tracerTime[i] > 0) tracerTime[i] -= delta;
+        }
+    }
+
+    public void snapshot(RenderSnapshot snapshot) {
+        float thickness = 1 / Constants.PPM;
+        for (int i = 0; i < MAX_TRACERS; i++) {
+            if (tracerTime[i] <= 0) continue;
+            float left = Math.min(tracerStartX[i], tracerEndX[i]);
+            float length = Math.abs(tracerEndX[i] - tracerStartX[i]);
+            float bottom = tracerY[i] - thickness / 2;
+            snapshot.addSprite(tracerAnimation, 0, true, false, left, bottom, left, bottom, length, thickness);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "fired " + fired + ", hits " + hits + ", tile hits " + tileHits + ", misses " + misses;
+    }
+}
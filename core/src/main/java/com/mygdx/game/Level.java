@@ -10,13 +10,16 @@ public class Level {
     public Vector2 playerStartPosition;
     public Vector2 levelCompletionPosition;
     public Array<Vector2> enemySpawnPoints;
+    public Array<SpawnTrigger> spawnTriggers; // Optional, for waves and custom radii
     public String backgroundMusic;
+    public transient LevelBundle bundle; // Compiled map and collision, null when the level comes from JSON and TMX
 
     public Level() {
         // Initialize default values
         mapFile = "";
         playerStartPosition = new Vector2();
         enemySpawnPoints = new Array<>();
+        spawnTriggers = new Array<>();
         levelCompletionPosition = new Vector2();
     }
 
@@ -24,6 +27,7 @@ public class Level {
         this.mapFile = mapFile;
         this.playerStartPosition = playerStart;
         this.enemySpawnPoints = enemies;
+        this.spawnTriggers = new Array<>();
         this.levelCompletionPosition = levelCompletion;
     }
 
@@ -0,0 +1,393 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A level compiled ahead of time by the lwjgl3 LevelCompiler: what the level JSON says, the map's
+ * tile layers as one short per cell, and the collision loops already traced. Reading it is a walk
+ * over a buffer, usually memory-mapped, with no XML, base64, zlib or outline tracing involved.
+ * The tile layers stay views into that buffer until createMap() turns them into cells.
+ *
+ * Cells hold 0 for empty or 1 + an index into the tile table. Each table entry names a tileset
+ * tile and how the cell shows it, with Tiled's flip flags already turned into libGDX flips and rotation.
+ * Rows run bottom to top like TiledMapTileLayer's.
+ */
+public class LevelBundle {
+
+    public static final String EXTENSION = ".bin";
+    private static final int MAGIC = 0x4C564C42; // "LVLB"
+    private static final int VERSION = 1;
+
+    // A tileset image, or the atlas regions of the map's merged tileset, see MapAtlasPacker
+    public static class Tileset {
+        public String name;
+        public String image; // Relative to the assets, empty when the tiles come from the atlas
+        public int tileWidth, tileHeight, margin, spacing, columns; // Pixels
+    }
+
+    public static class Layer {
+        public String name;
+        public boolean visible = true;
+        public float opacity = 1;
+        public ShortBuffer cells;
+    }
+
+    // From the level JSON
+    public String mapFile;
+    public String backgroundMusic;
+    public final Vector2 playerStartPosition = new Vector2(), levelCompletionPosition = new Vector2();
+    public final Array<Vector2> enemySpawnPoints = new Array<>();
+    public final Array<SpawnTrigger> spawnTriggers = new Array<>();
+
+    // From the map
+    public int width, height, tileWidth, tileHeight; // Tiles, pixels
+    public String atlas = ""; // Relative to the assets, empty when no tileset is packed
+    public final Array<Tileset> tilesets = new Array<>();
+    public short[] tileTileset; // Tile table
+    public int[] tileId; // Tile within its tileset: local id, or atlas region index
+    public boolean[] tileFlipX, tileFlipY;
+    public byte[] tileRotation; // TiledMapTileLayer.Cell.ROTATE_*
+    public final Array<Layer> layers = new Array<>();
+
+    // Collision loops in meters, as CollisionBaker.traceOutlines() returns them for the Solid layer
+    public final Array<float[]> loops = new Array<>();
+
+    public Level createLevel() {
+        Level level = new Level(mapFile, new Vector2(playerStartPosition), new Array<>(enemySpawnPoints),
+            new Vector2(levelCompletionPosition));
+        level.spawnTriggers.addAll(spawnTriggers);
+        level.backgroundMusic = backgroundMusic;
+        level.bundle = this;
+        return level;
+    }
+
+    /******* Map *******/
+
+    // GL thread. Loads the tileset textures, which the map owns and disposes.
+    public TiledMap createMap() {
+        return startMap().finish();
+    }
+
+    // Any thread. Decodes the tileset images and builds the layers, finish() then uploads the textures.
+    public MapLoad startMap() {
+        return new MapLoad();
+    }
+
+    /**
+     * A map whose images are decoded but not uploaded yet. Its tiles point at regions without a
+     * texture until finish() creates the textures on the GL thread and fills them in.
+     */
+    public class MapLoad {
+
+        private final TiledMap map;
+        private final Array<Pixmap> images = new Array<>(); // Atlas pages or tileset images, one texture each
+        private final Array<Texture.TextureFilter> minFilters = new Array<>(), magFilters = new Array<>();
+        private final TextureRegion[] regions = new TextureRegion[tileId.length];
+        private final int[] regionImage = new int[tileId.length];
+        private final int[] regionX = new int[tileId.length], regionY = new int[tileId.length];
+        private final int[] regionWidth = new int[tileId.length], regionHeight = new int[tileId.length];
+
+        private MapLoad() {
+            ObjectMap<String, TextureAtlas.TextureAtlasData.Region> atlasRegions = new ObjectMap<>();
+            Array<TextureAtlas.TextureAtlasData.Page> pages = null;
+            if (!atlas.isEmpty()) {
+                FileHandle atlasFile = Gdx.files.internal(atlas);
+                TextureAtlas.TextureAtlasData data = new TextureAtlas.TextureAtlasData(atlasFile, atlasFile.parent(), false);
+                for (TextureAtlas.TextureAtlasData.Page page : data.getPages()) {
+                    images.add(new Pixmap(page.textureFile));
+                    minFilters.add(page.minFilter);
+                    magFilters.add(page.magFilter);
+                }
+                for (TextureAtlas.TextureAtlasData.Region region : data.getRegions()) {
+                    atlasRegions.put(region.name + "#" + region.index, region);
+                }
+                pages = data.getPages();
+            }
+
+            ObjectMap<String, Integer> tilesetImages = new ObjectMap<>();
+            for (int i = 0; i < regions.length; i++) {
+                Tileset tileset = tilesets.get(tileTileset[i]);
+                if (tileset.image.isEmpty()) {
+                    TextureAtlas.TextureAtlasData.Region region = atlasRegions.get(tileset.name + "#" + tileId[i]);
+                    if (region == null) throw new IllegalStateException(atlas + " has no region " + tileset.name + " " + tileId[i]);
+                    regionImage[i] = pages.indexOf(region.page, true);
+                    regionX[i] = region.left;
+                    regionY[i] = region.top;
+                    regionWidth[i] = region.width;
+                    regionHeight[i] = region.height;
+                } else {
+                    Integer image = tilesetImages.get(tileset.image);
+                    if (image == null) {
+                        image = images.size;
+                        images.add(new Pixmap(Gdx.files.internal(tileset.image)));
+                        minFilters.add(Texture.TextureFilter.Nearest);
+                        magFilters.add(Texture.TextureFilter.Nearest);
+                        tilesetImages.put(tileset.image, image);
+                    }
+                    regionImage[i] = image;
+                    regionX[i] = tileset.margin + (tileId[i] % tileset.columns) * (tileset.tileWidth + tileset.spacing);
+                    regionY[i] = tileset.margin + (tileId[i] / tileset.columns) * (tileset.tileHeight + tileset.spacing);
+                    regionWidth[i] = tileset.tileWidth;
+                    regionHeight[i] = tileset.tileHeight;
+                }
+                regions[i] = new TextureRegion();
+            }
+
+            map = createMap(regions);
+            if (!atlas.isEmpty()) map.getProperties().put("atlas", atlas);
+        }
+
+        public TiledMap getMap() {
+            return map;
+        }
+
+        // GL thread. The map owns the textures from here on.
+        public TiledMap finish() {
+            Array<Disposable> owned = new Array<>();
+            Texture[] textures = new Texture[images.size];
+            for (int i = 0; i < images.size; i++) {
+                textures[i] = new Texture(images.get(i));
+                textures[i].setFilter(minFilters.get(i), magFilters.get(i));
+                owned.add(textures[i]);
+                images.get(i).dispose();
+            }
+            images.clear();
+
+            for (int i = 0; i < regions.length; i++) {
+                regions[i].setTexture(textures[regionImage[i]]);
+                regions[i].setRegion(regionX[i], regionY[i], regionWidth[i], regionHeight[i]);
+            }
+            map.setOwnedResources(owned);
+            return map;
+        }
+
+        // For a map that is never shown
+        public void cancel() {
+            for (Pixmap image : images) image.dispose();
+            images.clear();
+        }
+    }
+
+    // The map with one region per tile table entry, no GL involved
+    public TiledMap createMap(TextureRegion[] regions) {
+        TiledMap map = new TiledMap();
+        map.getProperties().put("width", width);
+        map.getProperties().put("height", height);
+        map.getProperties().put("tilewidth", tileWidth);
+        map.getProperties().put("tileheight", tileHeight);
+
+        TiledMapTileSet tileSet = new TiledMapTileSet();
+        tileSet.setName(mapFile);
+        map.getTileSets().addTileSet(tileSet);
+        TiledMapTileLayer.Cell[] cells = new TiledMapTileLayer.Cell[regions.length]; // Cells are shared, like the tiles
+        for (int i = 0; i < regions.length; i++) {
+            StaticTiledMapTile tile = new StaticTiledMapTile(regions[i]);
+            tile.setId(i + 1);
+            tileSet.putTile(i + 1, tile);
+            cells[i] = new TiledMapTileLayer.Cell();
+            cells[i].setTile(tile);
+            cells[i].setFlipHorizontally(tileFlipX[i]);
+            cells[i].setFlipVertically(tileFlipY[i]);
+            cells[i].setRotation(tileRotation[i]);
+        }
+
+        for (Layer layer : layers) {
+            TiledMapTileLayer tileLayer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+            tileLayer.setName(layer.name);
+            tileLayer.setVisible(layer.visible);
+            tileLayer.setOpacity(layer.opacity);
+            ShortBuffer layerCells = layer.cells.duplicate();
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int tile = layerCells.get() & 0xFFFF;
+                    if (tile != 0) tileLayer.setCell(x, y, cells[tile - 1]);
+                }
+            }
+            map.getLayers().add(tileLayer);
+        }
+        return map;
+    }
+
+    /******* Reading and writing *******/
+
+    // The layers keep pointing into buffer, which must not change afterwards
+    public static LevelBundle read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) throw new IOException("Not a level bundle");
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IOException("Level bundle version " + version + ", expected " + VERSION);
+
+        LevelBundle bundle = new LevelBundle();
+        bundle.mapFile = readString(buffer);
+        String music = readString(buffer);
+        bundle.backgroundMusic = music.isEmpty() ? null : music;
+        bundle.playerStartPosition.set(buffer.getFloat(), buffer.getFloat());
+        bundle.levelCompletionPosition.set(buffer.getFloat(), buffer.getFloat());
+        for (int i = buffer.getInt(); i > 0; i--) {
+            bundle.enemySpawnPoints.add(new Vector2(buffer.getFloat(), buffer.getFloat()));
+        }
+        for (int i = buffer.getInt(); i > 0; i--) {
+            SpawnTrigger trigger = new SpawnTrigger(buffer.getFloat(), buffer.getFloat());
+            trigger.radius = buffer.getFloat();
+            trigger.count = buffer.getInt();
+            trigger.waves = buffer.getInt();
+            trigger.waveDelay = buffer.getFloat();
+            trigger.maxAlive = buffer.getInt();
+            bundle.spawnTriggers.add(trigger);
+        }
+
+        bundle.width = buffer.getInt();
+        bundle.height = buffer.getInt();
+        bundle.tileWidth = buffer.getInt();
+        bundle.tileHeight = buffer.getInt();
+        bundle.atlas = readString(buffer);
+        for (int i = buffer.getInt(); i > 0; i--) {
+            Tileset tileset = new Tileset();
+            tileset.name = readString(buffer);
+            tileset.image = readString(buffer);
+            tileset.tileWidth = buffer.getInt();
+            tileset.tileHeight = buffer.getInt();
+            tileset.margin = buffer.getInt();
+            tileset.spacing = buffer.getInt();
+            tileset.columns = buffer.getInt();
+            bundle.tilesets.add(tileset);
+        }
+
+        int tiles = buffer.getInt();
+        bundle.tileTileset = new short[tiles];
+        bundle.tileId = new int[tiles];
+        bundle.tileFlipX = new boolean[tiles];
+        bundle.tileFlipY = new boolean[tiles];
+        bundle.tileRotation = new byte[tiles];
+        for (int i = 0; i < tiles; i++) {
+            bundle.tileTileset[i] = buffer.getShort();
+            bundle.tileId[i] = buffer.getInt();
+            byte flags = buffer.get();
+            bundle.tileFlipX[i] = (flags & 4) != 0;
+            bundle.tileFlipY[i] = (flags & 8) != 0;
+            bundle.tileRotation[i] = (byte) (flags & 3);
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            Layer layer = new Layer();
+            layer.name = readString(buffer);
+            layer.visible = buffer.get() != 0;
+            layer.opacity = buffer.getFloat();
+            int cells = bundle.width * bundle.height;
+            ByteBuffer slice = buffer.slice().order(buffer.order());
+            slice.limit(cells * 2);
+            layer.cells = slice.asShortBuffer();
+            buffer.position(buffer.position() + cells * 2);
+            bundle.layers.add(layer);
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            float[] loop = new float[buffer.getInt()];
+            buffer.asFloatBuffer().get(loop);
+            buffer.position(buffer.position() + loop.length * 4);
+            bundle.loops.add(loop);
+        }
+        return bundle;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, mapFile);
+        writeString(out, backgroundMusic == null ? "" : backgroundMusic);
+        out.writeFloat(playerStartPosition.x);
+        out.writeFloat(playerStartPosition.y);
+        out.writeFloat(levelCompletionPosition.x);
+        out.writeFloat(levelCompletionPosition.y);
+        out.writeInt(enemySpawnPoints.size);
+        for (Vector2 point : enemySpawnPoints) {
+            out.writeFloat(point.x);
+            out.writeFloat(point.y);
+        }
+        out.writeInt(spawnTriggers.size);
+        for (SpawnTrigger trigger : spawnTriggers) {
+            out.writeFloat(trigger.x);
+            out.writeFloat(trigger.y);
+            out.writeFloat(trigger.radius);
+            out.writeInt(trigger.count);
+            out.writeInt(trigger.waves);
+            out.writeFloat(trigger.waveDelay);
+            out.writeInt(trigger.maxAlive);
+        }
+
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(tileWidth);
+        out.writeInt(tileHeight);
+        writeString(out, atlas);
+        out.writeInt(tilesets.size);
+        for (Tileset tileset : tilesets) {
+            writeString(out, tileset.name);
+            writeString(out, tileset.image);
+            out.writeInt(tileset.tileWidth);
+            out.writeInt(tileset.tileHeight);
+            out.writeInt(tileset.margin);
+            out.writeInt(tileset.spacing);
+            out.writeInt(tileset.columns);
+        }
+
+        out.writeInt(tileId.length);
+        for (int i = 0; i < tileId.length; i++) {
+            out.writeShort(tileTileset[i]);
+            out.writeInt(tileId[i]);
+            out.writeByte((tileFlipX[i] ? 4 : 0) | (tileFlipY[i] ? 8 : 0) | tileRotation[i]);
+        }
+
+        out.writeInt(layers.size);
+        for (Layer layer : layers) {
+            writeString(out, layer.name);
+            out.writeByte(layer.visible ? 1 : 0);
+            out.writeFloat(layer.opacity);
+            ShortBuffer cells = layer.cells.duplicate();
+            cells.rewind();
+            while (cells.hasRemaining()) out.writeShort(cells.get());
+        }
+
+        out.writeInt(loops.size);
+        for (float[] loop : loops) {
+            out.writeInt(loop.length);
+            for (float value : loop) out.writeFloat(value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return mapFile + ": " + width + "x" + height + " tiles, " + layers.size + " layers, " + tileId.length
+            + " distinct tiles, " + loops.size + " collision loops";
+    }
+}
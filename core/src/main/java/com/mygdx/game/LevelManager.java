@@ -6,24 +6,122 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class LevelManager {
+    private static final String TAG = "LevelManager";
+    private static final String BUNDLE_ROOT = "compiled/"; // Written by ./gradlew :lwjgl3:compileLevels
+
+
     private Array<Level> levels = new Array<>();
     private int currentLevelIndex = 0;
     public int maxLevels = 3;
 
+    // One daemon thread that prepares the level after the current one, see preloadNext()
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Level loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<PreparedLevel> preloading;
+    private int preloadingIndex = -1;
+
     public LevelManager() {
         loadLevels();
     }
 
     private void loadLevels() {
+        long start = System.nanoTime();
+        int bundles = 0;
         Json json = new Json();
         for(int i = 1; i <= maxLevels; i++) {
-            Level level = json.fromJson(
-                Level.class,
-                Gdx.files.internal("levels/level" + i + ".json")
-            );
+            Level level = Constants.USE_LEVEL_BUNDLES ? readBundle(i) : null;
+            if (level != null) {
+                bundles++;
+            } else {
+                level = json.fromJson(
+                    Level.class,
+                    Gdx.files.internal("levels/level" + i + ".json")
+                );
+            }
             levels.add(level);
         }
+        Gdx.app.log(TAG, "Levels: " + levels.size + " loaded in " + (System.nanoTime() - start) / 1000 + " us, "
+            + bundles + " from bundles");
+    }
+
+    // The compiled level mapped straight from disk, null if it hasn't been compiled or isn't a plain file (inside a jar)
+    private Level readBundle(int number) {
+        File file = Gdx.files.internal(BUNDLE_ROOT + "level" + number + LevelBundle.EXTENSION).file();
+        if (!file.isFile()) return null;
+
+        // The mapping outlives the channel, the layers are read from it when the level starts
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return LevelBundle.read(buffer).createLevel();
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Couldn't read " + file + ", loading the TMX instead", e);
+            return null;
+        }
+    }
+
+    /******* Preloading *******/
+
+    // Starts preparing the level nextLevel() goes to, only compiled levels can be prepared off the GL thread
+    public void preloadNext() {
+        int next = currentLevelIndex + 1;
+        if (!Constants.PRELOAD_NEXT_LEVEL || next >= levels.size || preloadingIndex == next) return;
+        discardPreloaded();
+
+        final Level level = levels.get(next);
+        if (level.bundle == null) return;
+        preloading = loader.submit(() -> PreparedLevel.fromBundle(level));
+        preloadingIndex = next;
+    }
+
+    // The current level if it was preloaded, waiting for the loader if it isn't done yet. Null if it has to be loaded here.
+    public PreparedLevel takePreloaded() {
+        if (preloading == null || preloadingIndex != currentLevelIndex) return null;
+        Future<PreparedLevel> future = preloading;
+        preloading = null;
+        preloadingIndex = -1;
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Gdx.app.error(TAG, "Couldn't preload level " + (currentLevelIndex + 1) + ", loading it now", e.getCause());
+            return null;
+        }
+    }
+
+    // Frees a preloaded level that won't be played, after a reset for example
+    public void discardPreloaded() {
+        if (preloading == null) return;
+        Future<PreparedLevel> future = preloading;
+        preloading = null;
+        preloadingIndex = -1;
+        loader.execute(() -> {
+            try {
+                future.get().discard(); // Queued behind it on the same thread, so this never blocks
+            } catch (Exception e) {
+                // Nothing was kept
+            }
+        });
+    }
+
+    public void dispose() {
+        discardPreloaded();
+        loader.shutdown();
     }
 
     public Level getCurrentLevel() {
@@ -36,6 +134,7 @@ public class LevelManager {
 
     public void reset() {
         currentLevelIndex = 0;
+        discardPreloaded();
     }
 
     public boolean isFinalLevel() {
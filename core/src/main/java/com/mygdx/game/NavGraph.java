@@ -0,0 +1,469 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
+
+import java.util.Arrays;
+
+/**
+ * Where a ground unit can go, baked from the Solid layer when the level loads.
+ * Nodes are walkable surfaces: runs of empty tiles with floor below and headroom above.
+ * Walking along a surface is free movement, so edges only link surfaces: DROP off a ledge
+ * or JUMP to another surface within reach of a PLAYER_JUMP arc at ENEMY_SPEED, as long as that
+ * arc, played out against the tiles, really comes down on it.
+ * Paths are found with A* and cached per (source, target) surface pair, the level never changes.
+ * Lookups reuse scratch arrays, so only call them from the sim thread.
+ */
+public class NavGraph {
+
+    public static final int JUMP = 0, DROP = 1;
+
+    static final float JUMP_COST = 1f; // Extra meters a jump is worth, so walking around is preferred when close
+    static final float DROP_COST = 0.5f;
+    private static final int MAX_CACHED_PATHS = 4096;
+    private static final float BODY_HEIGHT = 32 / Constants.PPM / 1.8f; // Enemy collision box, see Enemy.getHitboxHalfHeight
+    private static final int[] NO_PATH = new int[0];
+
+    private final TileGrid grid;
+
+    // Surfaces, the tile row they stand in and their first and last column
+    private int surfaceCount;
+    private int[] surfaceRow, surfaceStart, surfaceEnd;
+    private float[] centerX, centerY; // Middle of the surface at foot height, meters
+    private final int[] cellSurface; // Surface per tile, -1 if not walkable
+
+    // Edges, sorted by source surface
+    private int edgeCount;
+    private int[] edgeFrom, edgeTo, edgeType;
+    private float[] edgeTakeoffX, edgeLandingX, edgeCost;
+    private int[] firstEdge; // Per surface, edges are firstEdge[s] until firstEdge[s + 1]
+
+    // A* scratch
+    private final float[] gScore;
+    private final int[] cameFrom; // Edge used to reach each surface
+    private final int[] visitStamp;
+    private final boolean[] closed;
+    private int stamp;
+    private final OpenHeap open;
+
+    private final LongMap<int[]> pathCache = new LongMap<>();
+
+    // Stats
+    public int lookups, cacheHits, searches, expanded;
+
+    public NavGraph(TileGrid grid) {
+        this.grid = grid;
+        cellSurface = new int[grid.width * grid.height];
+
+        findSurfaces();
+        linkSurfaces();
+
+        gScore = new float[surfaceCount];
+        cameFrom = new int[surfaceCount];
+        visitStamp = new int[surfaceCount];
+        closed = new boolean[surfaceCount];
+        open = new OpenHeap(surfaceCount);
+    }
+
+    /******* Baking *******/
+
+    private boolean isWalkable(int x, int y) {
+        return y > 0 && grid.isSolid(x, y - 1) && !grid.isSolid(x, y) && !grid.isSolid(x, y + 1);
+    }
+
+    private void findSurfaces() {
+        IntArray rows = new IntArray(), starts = new IntArray(), ends = new IntArray();
+        Arrays.fill(cellSurface, -1);
+
+        for (int y = 0; y < grid.height; y++) {
+            int start = -1;
+            for (int x = 0; x <= grid.width; x++) {
+                boolean walkable = x < grid.width && isWalkable(x, y);
+                if (walkable && start < 0) {
+                    start = x;
+                } else if (!walkable && start >= 0) {
+                    int surface = rows.size;
+                    rows.add(y);
+                    starts.add(start);
+                    ends.add(x - 1);
+                    for (int cx = start; cx < x; cx++) cellSurface[y * grid.width + cx] = surface;
+                    start = -1;
+                }
+            }
+        }
+
+        surfaceCount = rows.size;
+        surfaceRow = rows.toArray();
+        surfaceStart = starts.toArray();
+        surfaceEnd = ends.toArray();
+        centerX = new float[surfaceCount];
+        centerY = new float[surfaceCount];
+        for (int s = 0; s < surfaceCount; s++) {
+            centerX[s] = (surfaceStart[s] + surfaceEnd[s] + 1) / 2f * grid.tileWidth;
+            centerY[s] = surfaceRow[s] * grid.tileHeight;
+        }
+    }
+
+    private void linkSurfaces() {
+        IntArray from = new IntArray(), to = new IntArray(), type = new IntArray();
+        FloatArray takeoff = new FloatArray();
+        FloatArray landing = new FloatArray();
+
+        float gravity = Math.abs(Constants.GRAVITY);
+        float jumpSpeed = Constants.PLAYER_JUMP;
+        float maxRise = jumpSpeed * jumpSpeed / (2 * gravity) * 0.9f; // Keep a margin for the collision box
+        int maxRiseRows = (int) (maxRise / grid.tileHeight);
+        int maxGapColumns = (int) (reach(-10 * grid.tileHeight) / grid.tileWidth) + 1; // Widest gap worth checking
+
+        for (int a = 0; a < surfaceCount; a++) {
+            int row = surfaceRow[a];
+
+            // Drops: walk off either end and fall until something walkable is under us
+            for (int side = -1; side <= 1; side += 2) {
+                int x = side < 0 ? surfaceStart[a] - 1 : surfaceEnd[a] + 1;
+                if (x < 0 || x >= grid.width || grid.isSolid(x, row)) continue;
+                for (int y = row - 1; y > 0; y--) {
+                    if (grid.isSolid(x, y)) break; // Blocked before finding a floor
+                    int landingSurface = cellSurface[y * grid.width + x];
+                    if (landingSurface >= 0) {
+                        from.add(a);
+                        to.add(landingSurface);
+                        type.add(DROP);
+                        takeoff.add(edgeX(side < 0 ? surfaceStart[a] : surfaceEnd[a]));
+                        landing.add(edgeX(x));
+                        break;
+                    }
+                }
+            }
+
+            // Jumps: to any surface within reach of the arc, up to maxRiseRows higher
+            for (int b = 0; b < surfaceCount; b++) {
+                if (b == a) continue;
+                int rise = surfaceRow[b] - row;
+                if (rise > maxRiseRows || rise < -20) continue;
+
+                int takeoffColumn, landingColumn;
+                if (surfaceStart[b] > surfaceEnd[a]) { // b is to the right
+                    takeoffColumn = surfaceEnd[a];
+                    landingColumn = surfaceStart[b];
+                } else if (surfaceEnd[b] < surfaceStart[a]) { // b is to the left
+                    takeoffColumn = surfaceStart[a];
+                    landingColumn = surfaceEnd[b];
+                } else if (rise > 0) {
+                    // Overhead: take off just beside b's floor and land on its near end
+                    if (surfaceStart[b] - 1 >= surfaceStart[a]) {
+                        takeoffColumn = surfaceStart[b] - 1;
+                        landingColumn = surfaceStart[b];
+                    } else if (surfaceEnd[b] + 1 <= surfaceEnd[a]) {
+                        takeoffColumn = surfaceEnd[b] + 1;
+                        landingColumn = surfaceEnd[b];
+                    } else {
+                        continue; // a is entirely under b's floor
+                    }
+                } else {
+                    continue; // Below and overlapping, drops cover that
+                }
+
+                int gap = Math.abs(landingColumn - takeoffColumn);
+                if (gap > maxGapColumns) continue;
+                if (gap * grid.tileWidth > reach(rise * grid.tileHeight)) continue;
+                if (!isArcClear(edgeX(takeoffColumn), row * grid.tileHeight, edgeX(landingColumn), b)) continue;
+
+                from.add(a);
+                to.add(b);
+                type.add(JUMP);
+                takeoff.add(edgeX(takeoffColumn));
+                landing.add(edgeX(landingColumn));
+            }
+        }
+
+        // Sort edges by source (counting sort, they are already almost in order)
+        edgeCount = from.size;
+        firstEdge = new int[surfaceCount + 1];
+        for (int e = 0; e < edgeCount; e++) firstEdge[from.get(e) + 1]++;
+        for (int s = 0; s < surfaceCount; s++) firstEdge[s + 1] += firstEdge[s];
+
+        edgeFrom = new int[edgeCount];
+        edgeTo = new int[edgeCount];
+        edgeType = new int[edgeCount];
+        edgeTakeoffX = new float[edgeCount];
+        edgeLandingX = new float[edgeCount];
+        edgeCost = new float[edgeCount];
+        int[] fill = new int[surfaceCount];
+        for (int e = 0; e < edgeCount; e++) {
+            int a = from.get(e);
+            int i = firstEdge[a] + fill[a]++;
+            int b = to.get(e);
+            edgeFrom[i] = a;
+            edgeTo[i] = b;
+            edgeType[i] = type.get(e);
+            edgeTakeoffX[i] = takeoff.get(e);
+            edgeLandingX[i] = landing.get(e);
+            // Never cheaper than the straight line between centers, so that stays a valid A* heuristic
+            edgeCost[i] = distance(a, b) + (edgeType[i] == JUMP ? JUMP_COST : DROP_COST);
+        }
+    }
+
+    // Horizontal distance covered at ENEMY_SPEED during a PLAYER_JUMP arc that ends rise meters higher
+    private static float reach(float rise) {
+        float gravity = Math.abs(Constants.GRAVITY);
+        float jumpSpeed = Constants.PLAYER_JUMP;
+        float discriminant = jumpSpeed * jumpSpeed - 2 * gravity * rise;
+        if (discriminant < 0) return 0;
+        float airTime = (jumpSpeed + (float) Math.sqrt(discriminant)) / gravity;
+        return Constants.ENEMY_SPEED * airTime * 0.8f; // Margin for acceleration and the collision box
+    }
+
+    // Follows the jump the way Enemy takes it, one sim tick at a time at ENEMY_SPEED towards the landing spot, with the body's center line
+    // moved one axis at a time like Box2D would: walls stop it sideways, so it slides up past a ledge,
+    // and a ceiling ends the climb. The jump only counts if the body comes down on the landing surface.
+    private boolean isArcClear(float takeoffX, float takeoffY, float landingX, int landingSurface) {
+        float gravity = Math.abs(Constants.GRAVITY);
+        float direction = Math.signum(landingX - takeoffX);
+        float x = takeoffX, y = takeoffY, velocityY = Constants.PLAYER_JUMP;
+
+        while (y > 0) {
+            float nextX = x + direction * Constants.ENEMY_SPEED * Constants.SIM_STEP;
+            if ((landingX - nextX) * direction < 0) nextX = landingX;
+            if (!isBodyBlocked(nextX, y)) x = nextX;
+
+            velocityY -= gravity * Constants.SIM_STEP;
+            float nextY = y + velocityY * Constants.SIM_STEP;
+            if (!isBodyBlocked(x, nextY)) {
+                y = nextY;
+            } else if (velocityY > 0) {
+                velocityY = 0; // Head hit a ceiling, fall from here
+            } else {
+                return surfaceAt(x, y) == landingSurface;
+            }
+        }
+        return false; // Fell out of the map
+    }
+
+    private boolean isBodyBlocked(float x, float feetY) {
+        float bottom = feetY + grid.tileHeight * 0.1f; // Standing on a floor isn't being blocked by it
+        return grid.isSolidAt(x, bottom) || grid.isSolidAt(x, bottom + BODY_HEIGHT / 2) || grid.isSolidAt(x, feetY + BODY_HEIGHT);
+    }
+
+    private float edgeX(int column) {
+        return (column + 0.5f) * grid.tileWidth;
+    }
+
+    private float distance(int a, int b) {
+        float dx = centerX[a] - centerX[b];
+        float dy = centerY[a] - centerY[b];
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /******* Queries *******/
+
+    // Surface whose walkable cell holds the given feet position, -1 in the air
+    public int surfaceAt(float x, float feetY) {
+        int tileX = grid.tileX(x);
+        int tileY = grid.tileY(feetY + grid.tileHeight * 0.25f);
+        if (tileX < 0 || tileY < 0 || tileX >= grid.width || tileY >= grid.height) return -1;
+        return cellSurface[tileY * grid.width + tileX];
+    }
+
+    // Like surfaceAt, but looks down up to maxRows tiles, for targets that are jumping
+    public int surfaceBelow(float x, float feetY, int maxRows) {
+        int tileX = grid.tileX(x);
+        int tileY = grid.tileY(feetY + grid.tileHeight * 0.25f);
+        if (tileX < 0 || tileX >= grid.width) return -1;
+        for (int y = Math.min(tileY, grid.height - 1); y >= 0 && y > tileY - maxRows; y--) {
+            if (grid.isSolid(tileX, y)) return -1;
+            int surface = cellSurface[y * grid.width + tileX];
+            if (surface >= 0) return surface;
+        }
+        return -1;
+    }
+
+    // First edge to take from source towards target, -1 if already there or there's no way
+    public int nextEdge(int source, int target) {
+        int[] path = findPath(source, target);
+        return path.length > 0 ? path[0] : -1;
+    }
+
+    // Edges from source to target, empty if unreachable
+    public int[] findPath(int source, int target) {
+        lookups++;
+        if (source < 0 || target < 0 || source == target) return NO_PATH;
+
+        long key = (long) source * surfaceCount + target;
+        int[] path = pathCache.get(key);
+        if (path != null) {
+            cacheHits++;
+            return path;
+        }
+
+        path = search(source, target);
+        if (pathCache.size >= MAX_CACHED_PATHS) pathCache.clear();
+        pathCache.put(key, path);
+        return path;
+    }
+
+    private int[] search(int source, int target) {
+        searches++;
+        stamp++;
+        open.clear();
+
+        visit(source, 0f, -1);
+        open.push(source, distance(source, target));
+
+        while (open.size > 0) {
+            int current = open.pop();
+            if (closed[current]) continue;
+            closed[current] = true;
+            expanded++;
+
+            if (current == target) return buildPath(target);
+
+            for (int e = firstEdge[current]; e < firstEdge[current + 1]; e++) {
+                int next = edgeTo[e];
+                float g = gScore[current] + edgeCost[e];
+                if (visitStamp[next] == stamp && (closed[next] || g >= gScore[next])) continue;
+
+                visit(next, g, e);
+                open.push(next, g + distance(next, target));
+            }
+        }
+        return NO_PATH;
+    }
+
+    private void visit(int surface, float g, int edge) {
+        if (visitStamp[surface] != stamp) {
+            visitStamp[surface] = stamp;
+            closed[surface] = false;
+        }
+        gScore[surface] = g;
+        cameFrom[surface] = edge;
+    }
+
+    private int[] buildPath(int target) {
+        int length = 0;
+        for (int s = target; cameFrom[s] >= 0; s = edgeFrom[cameFrom[s]]) length++;
+
+        int[] path = new int[length];
+        for (int s = target, i = length - 1; cameFrom[s] >= 0; s = edgeFrom[cameFrom[s]], i--) {
+            path[i] = cameFrom[s];
+        }
+        return path;
+    }
+
+    /******* Accessors, immutable after baking and safe from any thread *******/
+
+    public int getSurfaceCount() {
+        return surfaceCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getSurfaceRow(int surface) {
+        return surfaceRow[surface];
+    }
+
+    public int getSurfaceFirstColumn(int surface) {
+        return surfaceStart[surface];
+    }
+
+    public int getSurfaceLastColumn(int surface) {
+        return surfaceEnd[surface];
+    }
+
+    public float getSurfaceLeft(int surface) {
+        return surfaceStart[surface] * grid.tileWidth;
+    }
+
+    public float getSurfaceRight(int surface) {
+        return (surfaceEnd[surface] + 1) * grid.tileWidth;
+    }
+
+    public int getEdgeFrom(int edge) {
+        return edgeFrom[edge];
+    }
+
+    public int getEdgeTo(int edge) {
+        return edgeTo[edge];
+    }
+
+    public int getEdgeType(int edge) {
+        return edgeType[edge];
+    }
+
+    public float getTakeoffX(int edge) {
+        return edgeTakeoffX[edge];
+    }
+
+    public float getLandingX(int edge) {
+        return edgeLandingX[edge];
+    }
+
+    public String getStats() {
+        int jumps = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            if (edgeType[e] == JUMP) jumps++;
+        }
+        return surfaceCount + " surfaces, " + edgeCount + " edges (" + jumps + " jumps, " + (edgeCount - jumps) + " drops)";
+    }
+
+    @Override
+    public String toString() {
+        return getStats() + ", " + lookups + " lookups, " + cacheHits + " cache hits, " + searches + " searches, "
+            + expanded + " nodes expanded, " + pathCache.size + " cached paths";
+    }
+
+    // Binary min-heap of surfaces keyed by f score, duplicates are skipped when popped
+    private static class OpenHeap {
+        private int[] items;
+        private float[] keys;
+        int size;
+
+        OpenHeap(int capacity) {
+            items = new int[Math.max(16, capacity)];
+            keys = new float[items.length];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void push(int item, float key) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                items[i] = items[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            items[i] = item;
+            keys[i] = key;
+        }
+
+        int pop() {
+            int top = items[0];
+            int lastItem = items[--size];
+            float lastKey = keys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= lastKey) break;
+                items[i] = items[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            items[i] = lastItem;
+            keys[i] = lastKey;
+            return top;
+        }
+    }
+}
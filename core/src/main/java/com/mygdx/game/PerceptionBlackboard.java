@@ -0,0 +1,120 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * What enemies know about the player, worked out once per tick before they think.
+ * Enemies read their row through Enemy.perceptionSlot, so perception is a few array reads
+ * per enemy, and squad rules such as how many may shoot at once are decided here.
+ * Written on the sim thread only, read-only while enemies think in parallel.
+ */
+public class PerceptionBlackboard {
+
+    // Player
+    public float playerX, playerY;
+    public float playerVelocityX, playerVelocityY;
+    public boolean playerGrounded, playerShot;
+
+    // One row per enemy thinking this tick
+    public float[] offsetX = new float[0]; // Enemy x minus player x
+    public float[] distance = new float[0];
+    public boolean[] visible = new boolean[0]; // Player on the same level and no wall in between
+    public boolean[] mayShoot = new boolean[0];
+
+    // Navigation, paths are looked up here so the NavGraph cache is only touched by the sim thread
+    public static final int SAME_SURFACE = -1, NO_PATH = -2;
+    public int playerSurface = -1; // Last surface the player stood on or is falling towards
+    public boolean[] onSurface = new boolean[0]; // Feet on a walkable surface, not jumping or falling
+    public int[] chaseEdge = new int[0]; // Next NavGraph edge towards the player, chasing enemies only
+    public FlowField flow; // When set, chasing enemies follow it and chaseEdge is not filled in
+
+    // Attacking rows that can see the player, nearest first
+    public int[] shooterCandidates = new int[0];
+    public int shooterCandidateCount;
+
+    public void update(Player player, Array<Enemy> enemies, TileGrid grid, NavGraph nav) {
+        playerX = player.getX();
+        playerY = player.getY();
+        playerVelocityX = player.getVelocityX();
+        playerVelocityY = player.getVelocityY();
+        playerGrounded = player.isGrounded();
+        playerShot = player.isShot;
+
+        if (nav != null) {
+            int surface = nav.surfaceBelow(playerX, playerY - player.getHitboxHalfHeight(), 8);
+            if (surface >= 0) playerSurface = surface;
+        }
+
+        int count = enemies.size;
+        if (offsetX.length < count) {
+            int capacity = Math.max(count, offsetX.length * 2);
+            offsetX = new float[capacity];
+            distance = new float[capacity];
+            visible = new boolean[capacity];
+            mayShoot = new boolean[capacity];
+            onSurface = new boolean[capacity];
+            chaseEdge = new int[capacity];
+            shooterCandidates = new int[capacity];
+        }
+
+        boolean anyChasing = false;
+        shooterCandidateCount = 0;
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies.get(i);
+            enemy.perceptionSlot = i;
+            mayShoot[i] = false;
+            onSurface[i] = false;
+            chaseEdge[i] = NO_PATH;
+
+            if (enemy.isShot()) {
+                visible[i] = false;
+                continue;
+            }
+
+            if (nav != null) {
+                int surface = nav.surfaceAt(enemy.getX(), enemy.getY() - enemy.getHitboxHalfHeight());
+                if (surface >= 0) {
+                    enemy.setNavSurface(surface); // Kept while airborne, so a jump is still judged from where it started
+                    onSurface[i] = true;
+                }
+                anyChasing |= enemy.isChasing();
+                int enemySurface = enemy.getNavSurface();
+                if (flow == null && enemy.isChasing() && enemySurface >= 0 && playerSurface >= 0) {
+                    if (enemySurface == playerSurface) {
+                        chaseEdge[i] = SAME_SURFACE;
+                    } else {
+                        int edge = nav.nextEdge(enemySurface, playerSurface);
+                        chaseEdge[i] = edge >= 0 ? edge : NO_PATH;
+                    }
+                }
+            }
+
+            float dx = enemy.getX() - playerX;
+            float dy = enemy.getY() - playerY;
+            offsetX[i] = dx;
+            distance[i] = (float) Math.sqrt(dx * dx + dy * dy);
+            visible[i] = Math.abs(dy) < 0.4f && grid.hasLineOfSight(enemy.getX(), enemy.getY(), playerX, playerY);
+
+            if (visible[i] && enemy.isAttacking()) {
+                // Insertion sort, only enemies that spotted the player attack, so there are few of them
+                int j = shooterCandidateCount++;
+                while (j > 0 && distance[shooterCandidates[j - 1]] > distance[i]) {
+                    shooterCandidates[j] = shooterCandidates[j - 1];
+                    j--;
+                }
+                shooterCandidates[j] = i;
+            }
+        }
+
+        // One field update covers every chaser, and none is needed while nobody chases
+        if (flow != null && anyChasing) {
+            flow.setTarget(flow.nodeBelow(playerX, playerY - player.getHitboxHalfHeight(), 8));
+        }
+
+        // Only the nearest attackers that can see the player get to shoot
+        int shooters = Math.min(shooterCandidateCount, Constants.AI_MAX_SHOOTERS);
+        for (int k = 0; k < shooters; k++) {
+            mayShoot[shooterCandidates[k]] = true;
+        }
+    }
+}
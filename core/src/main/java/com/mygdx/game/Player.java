@@ -19,13 +19,22 @@ public class Player {
 
     private Body body;
     private Gun gun;
+    private GrenadeLauncher grenades;
+    private BodyStateCache bodyStates;
+    private int slot; // Our entry in bodyStates
 
     private float coyoteTime = 0.15f; // 150ms
-    private float coyoteTimer = 0f;
+    private TimerWheel timers;
+    private final TimerWheel.Timer coyoteTimer = new TimerWheel.Timer(() -> canJump = false);
+    private final TimerWheel.Timer deathTimer = new TimerWheel.Timer(this::respawn);
+    private final TimerWheel.Timer grenadeCooldown = new TimerWheel.Timer();
     private boolean canJump = false;
     private boolean isJumping = false;
 
 
+    private static final String ANIMATIONS = "player";
+    private static final String TAG = "Player";
+    private final Assets assets;
     private AnimationManager animationManager;
     public PlayingState playingState;
 
@@ -40,13 +49,10 @@ public class Player {
     public boolean levelCompleted;
     private boolean needSmoke;
 
-    public float deathTimer = Constants.PLAYER_DEATH_DURATION;
-    public Set<Body> bulletsToRemove;
-
     // Sounds
     Sound[] bulletSounds = new Sound[5];
 
-    public Player(World world, float x, float y, float width, float height, Set<Body> bulletsToRemove, PlayingState playingState) {
+    public Player(World world, BodyStateCache bodyStates, Assets assets, TimerWheel timers, float x, float y, float width, float height, ProjectileLauncher bullets, ProjectileLauncher hitscan, GrenadeLauncher grenades, PlayingState playingState) {
 
         this.width = width;
         this.height = height;
@@ -62,12 +68,14 @@ public class Player {
         this.needSmoke = false;
 
         this.playingState = playingState;
-        this.bulletsToRemove = bulletsToRemove;
+        this.bodyStates = bodyStates;
+        this.timers = timers;
 
-        animationManager = new AnimationManager();
-        loadAnimations();
+        this.assets = assets;
+        animationManager = new AnimationManager(assets.acquireAnimations(ANIMATIONS, Player::buildAnimations));
 
-        gun = new Gun(bulletsToRemove);
+        gun = new Gun(assets, bullets, hitscan, timers);
+        this.grenades = grenades;
 
         float collisionBoxWidth = width / 3.5f;
         float collisionBoxHeight = height / 1.8f;
@@ -103,58 +111,62 @@ public class Player {
 
         shape.dispose();
 
+        slot = bodyStates.register(body);
+
 
     }
 
 
-    private void loadAnimations() {
-        Texture playerSheet = new Texture("Animations/RAMBO_anim.png");
-        TextureRegion[][] tmpFrames = TextureRegion.split(playerSheet, 32, 32);
+    // Shared by every player, see Assets
+    private static AnimationSet buildAnimations(Assets assets) {
+        AnimationSet animations = new AnimationSet();
+        TextureRegion playerSheet = animations.sheet(assets, "Animations/RAMBO_anim.png");
+        TextureRegion[][] tmpFrames = playerSheet.split(32, 32);
 
         // Idle (single frame)
         TextureRegion[] idleFrames = { tmpFrames[0][0] };
-        animationManager.addAnimation("idle", new Animation<>(0.1f, idleFrames));
+        animations.add("idle", new Animation<>(0.1f, idleFrames));
 
         // Walk (loop)
         TextureRegion[] walkFrames = { tmpFrames[0][1], tmpFrames[0][2], tmpFrames[0][3] };
-        animationManager.addAnimation("walk", new Animation<>(0.3f, walkFrames));
+        animations.add("walk", new Animation<>(0.3f, walkFrames));
 
         // Jump (6 frames, no loop)
         TextureRegion[] jumpFrames = new TextureRegion[6];
         for (int i = 6, temp = 0; i < 12; i++, temp++) {
             jumpFrames[temp] = tmpFrames[2][i];
         }
-        animationManager.addAnimation("jump", new Animation<>(0.2f, jumpFrames));
+        animations.add("jump", new Animation<>(0.2f, jumpFrames));
 
         // Wall slide (single frame)
         TextureRegion[] wallSlideFrames1 = { tmpFrames[0][11], tmpFrames[0][12], tmpFrames[0][13] };
-        animationManager.addAnimation("wallSlide1", new Animation<>(0.1f, wallSlideFrames1));
+        animations.add("wallSlide1", new Animation<>(0.1f, wallSlideFrames1));
         TextureRegion[] wallSlideFrames2 = { tmpFrames[0][14], tmpFrames[0][15], tmpFrames[0][16] };
-        animationManager.addAnimation("wallSlide2", new Animation<>(0.1f, wallSlideFrames2));
+        animations.add("wallSlide2", new Animation<>(0.1f, wallSlideFrames2));
 
         // Player dead
         TextureRegion[] deadFrames = { tmpFrames[7][11]};
         deadFrames[0].flip(true, false); // Flip the frame
-        animationManager.addAnimation("dead", new Animation<>(0.1f, deadFrames));
+        animations.add("dead", new Animation<>(0.1f, deadFrames));
 
         // Misc Animations
 
-        Texture smokeSheet1 = new Texture("Animations/Misc/SmokeSmall2.png");
-        TextureRegion[][] tmpSmokeFrames1 = TextureRegion.split(smokeSheet1, 16, 16);
+        TextureRegion smokeSheet1 = animations.sheet(assets, "Animations/Misc/SmokeSmall2.png");
+        TextureRegion[][] tmpSmokeFrames1 = smokeSheet1.split(16, 16);
 
         TextureRegion[] smokeFrames1 = new TextureRegion[8];
         for (int i = 0; i < 8; i++) {
             smokeFrames1[i] = tmpSmokeFrames1[0][i];
         }
-        animationManager.addAnimation("smoke1", new Animation<>(0.3f, smokeFrames1));
-
+        animations.add("smoke1", new Animation<>(0.3f, smokeFrames1));
 
+        return animations;
     }
 
 
     public void update(float delta) {
 
-        if (body.getPosition().y < 0.1) {
+        if (getY() < 0.1) {
             isShot = true;
             playingState.resetPosition();
             reset();
@@ -173,19 +185,10 @@ public class Player {
         }
 
         */
-        if (isShot) {
-            deathTimer -= delta;
-            if (deathTimer <= 0) {
-                isShot = false; // Unlock player
-                playingState.resetPosition();
-                reset(); // Reset player position
-            }
-        }
-
         stateTime += delta;
 
         if(!isMoving){
-            body.setLinearVelocity(0, body.getLinearVelocity().y); // Prevents sliding
+            bodyStates.setLinearVelocity(slot, 0, bodyStates.velocityY[slot]); // Prevents sliding
         }
 
         animationManager.update(delta, isGrounded(), isMoving, isFiring, isShot,false, 0); // player render animation
@@ -193,27 +196,54 @@ public class Player {
 
 
         if (isGrounded()) {
-            coyoteTimer = coyoteTime;
+            timers.cancel(coyoteTimer);
             canJump = true;
-        } else {
+        } else if (canJump && !coyoteTimer.isPending()) {
             // System.out.println(body.getLinearVelocity().y);
-            coyoteTimer -= delta;
-            if (coyoteTimer <= 0) {
-                canJump = false;
-            }
+            timers.schedule(coyoteTimer, coyoteTime); // Just left the ground, canJump goes when it fires
         }
 
         isFiring = false;
 
     }
 
-    public void render(SpriteBatch batch) {
+    public float getX() {
+        return bodyStates.x[slot];
+    }
 
-        float x = body.getPosition().x - width / 2;
-        float y = body.getPosition().y + Constants.SPRITE_YOFFSET - height / 2;
+    public float getY() {
+        return bodyStates.y[slot];
+    }
 
-        TextureRegion currentPlayerFrame = animationManager.getCurrentPlayerFrame(isFacingLeft);
-        batch.draw(currentPlayerFrame, x, y, width, height);
+    public float getVelocityX() {
+        return bodyStates.velocityX[slot];
+    }
+
+    public float getVelocityY() {
+        return bodyStates.velocityY[slot];
+    }
+
+    public float getPreviousX() {
+        return bodyStates.prevX[slot];
+    }
+
+    public float getPreviousY() {
+        return bodyStates.prevY[slot];
+    }
+
+    public void setPosition(Vector2 position) {
+        bodyStates.setPosition(slot, position.x, position.y);
+    }
+
+    public void snapshot(RenderSnapshot snapshot) {
+
+        float prevDrawX = getPreviousX() - width / 2;
+        float prevDrawY = getPreviousY() + Constants.SPRITE_YOFFSET - height / 2;
+        float x = getX() - width / 2;
+        float y = getY() + Constants.SPRITE_YOFFSET - height / 2;
+
+        snapshot.addSprite(animationManager.getAnimationId(animationManager.getCurrentState()), animationManager.getStateTime(),
+            true, isFacingLeft, prevDrawX, prevDrawY, x, y, width, height);
 
         /*
         if(isGrounded() && this.needSmoke) {
@@ -223,22 +253,36 @@ public class Player {
         }
         */
 
-        if (!isShot) gun.render(batch, x, y); // draw gun
+        if (!isShot) gun.snapshot(snapshot, prevDrawX, prevDrawY, x, y); // draw gun
 
     }
 
     public void fire() {
         isFiring = true;
-        gun.fire(body.getWorld(), body.getPosition().x, body.getPosition().y, 0);
+        gun.fire(getX(), getY());
+    }
+
+    public void throwGrenade() {
+        if (grenadeCooldown.isPending()) return;
+        float direction = isFacingLeft ? -1 : 1;
+        if (grenades.throwGrenade(getX() + direction * Constants.RAMBO_BULLET_XOFFSET, getY(),
+            getVelocityX() + direction * Constants.GRENADE_THROW_SPEED_X, Constants.GRENADE_THROW_SPEED_Y)) {
+            timers.schedule(grenadeCooldown, Constants.GRENADE_COOLDOWN);
+        }
+    }
+
+    public void switchFireMode() {
+        gun.setFireMode(gun.getFireMode() == Gun.FireMode.HITSCAN ? Gun.FireMode.PROJECTILE : Gun.FireMode.HITSCAN);
+        Gdx.app.debug(TAG, "Fire mode: " + gun.getFireMode());
     }
 
     public void jump() {
         if (canJump) {
 
-            body.setLinearVelocity(body.getLinearVelocity().x, Constants.PLAYER_JUMP);
+            bodyStates.setLinearVelocity(slot, getVelocityX(), Constants.PLAYER_JUMP);
             canJump = false;
             isJumping = true;
-            coyoteTimer = 0;
+            timers.cancel(coyoteTimer);
         }
 
     }
@@ -250,10 +294,10 @@ public class Player {
     }
     public void moveLeft() {
         if(isGrounded()){
-            body.setLinearVelocity(-Constants.PLAYER_SPEED, body.getLinearVelocity().y);
+            bodyStates.setLinearVelocity(slot, -Constants.PLAYER_SPEED, getVelocityY());
         }
         else {
-            body.setLinearVelocity(-Constants.PLAYER_SPEED * Constants.PLAYER_SPEED_MID_AIR, body.getLinearVelocity().y);
+            bodyStates.setLinearVelocity(slot, -Constants.PLAYER_SPEED * Constants.PLAYER_SPEED_MID_AIR, getVelocityY());
         }
         isMoving = true;
         isFacingLeft = true;
@@ -261,10 +305,10 @@ public class Player {
 
     public void moveRight() {
         if(isGrounded()){
-            body.setLinearVelocity(Constants.PLAYER_SPEED, body.getLinearVelocity().y);
+            bodyStates.setLinearVelocity(slot, Constants.PLAYER_SPEED, getVelocityY());
         }
         else {
-            body.setLinearVelocity(Constants.PLAYER_SPEED * Constants.PLAYER_SPEED_MID_AIR, body.getLinearVelocity().y);
+            bodyStates.setLinearVelocity(slot, Constants.PLAYER_SPEED * Constants.PLAYER_SPEED_MID_AIR, getVelocityY());
         }
 
         isMoving = true;
@@ -277,24 +321,45 @@ public class Player {
         isShot = false;
         isOnGround = isGrounded();
         canJump = false;
-        coyoteTimer = 0;
+        timers.cancel(coyoteTimer);
+        timers.cancel(deathTimer);
     }
 
     public Body getBody() {
         return body;
     }
 
+    // Half extents of the collision box, for hit tests outside Box2D
+    public float getHitboxHalfWidth() {
+        return width / 3.5f / 2;
+    }
+
+    public float getHitboxHalfHeight() {
+        return height / 1.8f / 2;
+    }
+
     public boolean isGrounded() {
         // Use velocity or other checks instead of collision flags
-        return (Math.abs(body.getLinearVelocity().y) < 0.01f && Math.abs(body.getLinearVelocity().y) > -0.01f); // Near-zero vertical velocity
+        return bodyStates.grounded[slot]; // Near-zero vertical velocity, read once per tick
     }
 
     public void dead (){
+        if (!this.isShot) {
+            timers.schedule(deathTimer, Constants.PLAYER_DEATH_DURATION);
+        }
         this.isShot = true;
     }
 
+    private void respawn() {
+        isShot = false; // Unlock player
+        playingState.resetPosition();
+        reset(); // Reset player position
+    }
+
 
+    // Gives back the shared animations and sounds, the body goes with the world
     public void dispose() {
         gun.dispose();
+        assets.release(ANIMATIONS);
     }
 }
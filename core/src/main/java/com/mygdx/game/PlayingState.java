@@ -2,8 +2,8 @@ package com.mygdx.game;
 
 import com.badlogic.gdx.Application;
 import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.AtlasTmxMapLoader;
 import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 
@@ -11,23 +11,22 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.Texture;
 
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.Array;
 
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
-
 import static java.lang.Math.abs;
 
 public class PlayingState extends GameState {
 
+    private static final String TAG = "PlayingState"; // Stats on L, load details at debug level
     private LevelManager levelManager;
     private World world;
     private Box2DDebugRenderer debugRenderer;
@@ -36,21 +35,90 @@ public class PlayingState extends GameState {
     private TiledMap map;
     private OrthogonalTiledMapRenderer renderer;
     private OrthographicCamera camera;
+    private ChunkStreamer streamer;
+    private BodyStateCache bodyStates; // Per-tick copy of every dynamic body's state
+    private TimerWheel timers; // Gameplay cooldowns and delays, advanced once per tick
+    private PreparedLevel preparedLevel; // The current level's map data, collision loops and navigation
+    private TileGrid tileGrid; // Bit-packed Solid layer for queries that don't need Box2D
+    private NavGraph navGraph; // Surfaces and jump/drop links baked from tileGrid, for enemies chasing the player
+    private FlowField flowField; // Shared chase distances, null unless FLOW_FIELD_CHASE
+    private ProjectilePool playerBullets; // Bullet bodies are created once per level and reused
+    private ProjectilePool enemyBullets;
+    private ProjectileEngine projectiles; // Box2D-free bullets, used when LIGHTWEIGHT_PROJECTILES is on
+    private ProjectileLauncher playerLauncher, enemyLauncher; // Whichever of the two the guns fire through
+    private HitscanLauncher playerHitscan;
+    private SpatialHash entities; // Player and living enemies, rebuilt every tick for area queries
+    private GrenadeLauncher grenades;
+    private int explosionAnimation; // Assets animation ids, what the render snapshot holds
+    private float explosionDuration;
+    private Texture tracerTexture;
+    private int tracerAnimation;
+    private boolean stressRunning = false;
+    private static final String EFFECTS = "effects"; // Bullet and explosion animations, from gsm.assets
+    private static final String MAP_ATLAS_ROOT = "atlas/"; // Packed maps keep their path under assets/ below this
+    private int bulletAnimation;
+    private float bulletWidth, bulletHeight; // Meters
 
     private boolean wasSpacePressed = false;
 
-    // Removing bullets inside world.step() causes a crash
-    public Set<Body> bulletsToRemove = new LinkedHashSet<>();
-    public Set<Body> bodiesToRemove = new LinkedHashSet<>();
+    // Draw calls of the entity batch, see USE_TEXTURE_ATLAS, and of the map renderer, see USE_MAP_ATLAS
+    private int lastDrawCalls, peakDrawCalls, lastMapDrawCalls, peakMapDrawCalls;
+    private long totalDrawCalls, totalMapDrawCalls, renderedFrames;
+
+    float step = Constants.SIM_STEP; // Fixed timestep
+    private float accumulator = 0f; // Unsimulated frame time
+    private float alpha = 0f; // Interpolation factor between previous and current tick
 
-    float step = 1/60f; // Fixed timestep
+    // Render only reads published snapshots, so the simulation can run on its own thread
+    private final SnapshotBuffer snapshots = new SnapshotBuffer();
+    private final Object simLock = new Object(); // Guards world and entities when the simulation is threaded
+    private SimulationThread simulationThread;
+    private volatile boolean levelCompleted = false;
+    private boolean disposed = false;
 
     public PlayingState(GameStateManager gsm) {
         super(gsm);
 
         levelManager = new LevelManager();
+
+        // One bullet animation for both pools and the grenade explosions, kept across levels
+        AnimationSet effects = gsm.assets.acquireAnimations(EFFECTS, PlayingState::buildEffects);
+        bulletAnimation = effects.getId("bullet");
+        TextureRegion bulletFrame = effects.get("bullet").getKeyFrames()[0];
+        bulletWidth = bulletFrame.getRegionWidth() / Constants.PPM;
+        bulletHeight = bulletFrame.getRegionHeight() / Constants.PPM;
+        explosionAnimation = effects.getId("explosion");
+        explosionDuration = effects.get("explosion").getAnimationDuration();
+
+        // Hitscan tracers are a stretched pixel
+        Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        pixmap.setColor(1f, 0.9f, 0.5f, 1f);
+        pixmap.fill();
+        tracerTexture = new Texture(pixmap);
+        pixmap.dispose();
+        tracerAnimation = gsm.assets.registerAnimation(new Animation<>(1f, new TextureRegion(tracerTexture)));
+
         initializeLevel();
 
+        if (Constants.THREADED_SIMULATION) {
+            simulationThread = new SimulationThread(this, step);
+            simulationThread.start();
+        }
+
+    }
+
+
+    private static AnimationSet buildEffects(Assets assets) {
+        AnimationSet effects = new AnimationSet();
+
+        TextureRegion[][] tmpBulletFrames = effects.sheet(assets, "Animations/Bullet Friendly.png").split(16, 16);
+        TextureRegion[] bulletFrames = {tmpBulletFrames[0][0], tmpBulletFrames[0][1], tmpBulletFrames[0][2]};
+        effects.add("bullet", new Animation<>(0.5f, bulletFrames));
+
+        TextureRegion[][] tmpExplosionFrames = effects.sheet(assets, "Animations/Misc/SmokeSmall3.png").split(16, 16);
+        effects.add("explosion", new Animation<>(0.03f, tmpExplosionFrames[0]));
+
+        return effects;
     }
 
 
@@ -59,6 +127,18 @@ public class PlayingState extends GameState {
 
 
     private void initializeLevel() {
+        long loadStart = System.nanoTime();
+
+        // The previous level's entities give their assets back once the new ones hold them, so nothing is reloaded
+        Player previousPlayer = player;
+        EnemySpawner previousSpawner = spawner;
+        if (grenades != null) grenades.cancel(); // Their fuses are on the old wheel
+        if (map != null) {
+            map.dispose();
+            renderer.dispose();
+            debugRenderer.dispose();
+        }
+
         // Clear existing world
         if(world != null) world.dispose();
 
@@ -67,26 +147,43 @@ public class PlayingState extends GameState {
         debugRenderer = new Box2DDebugRenderer();
 
         // Load level-specific map
+        // Preloaded while the previous level was played, otherwise prepared here
         Level currentLevel = levelManager.getCurrentLevel();
-        map = new TmxMapLoader().load(currentLevel.mapFile);
+        PreparedLevel preloaded = levelManager.takePreloaded();
+        preparedLevel = preloaded != null ? preloaded
+            : currentLevel.bundle != null ? PreparedLevel.fromBundle(currentLevel)
+            : PreparedLevel.fromMap(currentLevel, loadMap(currentLevel.mapFile));
+        map = preparedLevel.finishMap();
         renderer = new OrthogonalTiledMapRenderer(map, 1 / Constants.PPM);
 
         // Initialize player at level's start position
+        bodyStates = new BodyStateCache();
+        timers = new TimerWheel();
+        createProjectilePools();
         player = new Player(world,
+            bodyStates,
+            gsm.assets,
+            timers,
             currentLevel.playerStartPosition.x,
             currentLevel.playerStartPosition.y,
             32/Constants.PPM,
             32/Constants.PPM,
-            bulletsToRemove,
+            playerLauncher,
+            playerHitscan,
+            grenades,
             this
         );
 
         // Initialize enemies
-        spawner = new EnemySpawner(world, player, bulletsToRemove);
-        spawner.spawnPoints.clear();
-        spawner.setSpawnPoints(currentLevel.enemySpawnPoints);
+        spawner = new EnemySpawner(world, bodyStates, gsm.assets, timers, player, enemyLauncher);
+        spawner.setSpawnTriggers(currentLevel.enemySpawnPoints, currentLevel.spawnTriggers);
 
-        createCollisionTiles();
+        createCollisionTiles(); // Prewarms the enemy pool
+        if (previousPlayer != null) previousPlayer.dispose();
+        if (previousSpawner != null) previousSpawner.dispose();
+        Gdx.app.debug(TAG, "Level " + currentLevel.mapFile + " loaded in " + (System.nanoTime() - loadStart) / 1000 + " us from "
+            + (preparedLevel.isBundled() ? "its bundle" : "the TMX")
+            + (preloaded != null ? " (prepared on the loader thread in " + preparedLevel.prepareNanos / 1000 + " us)" : ""));
 
         // Set camera viewport to METERS
         camera = new OrthographicCamera();
@@ -97,74 +194,45 @@ public class PlayingState extends GameState {
         );
         camera.zoom = 0.3f; // *** PPM CHANGE: Zoom out camera
 
-        world.setContactListener(new ContactListener() {
-            @Override
-            public void beginContact(Contact contact) {
-
-                // Colliding objects:
-                Fixture fixtureA = contact.getFixtureA();
-                Fixture fixtureB = contact.getFixtureB();
-
-                Object userDataA = fixtureA.getUserData();
-                Object userDataB = fixtureB.getUserData();
-
-
-                if (userDataA instanceof Bullet && userDataB instanceof Enemy && !((Enemy) userDataB).isShot) {
-                    // System.out.println("Bullet hit enemy");
-                    ((Enemy) userDataB).dead();
-                    removeBodiesQueue(fixtureB);
-                } else if (userDataA instanceof Enemy && userDataB instanceof Bullet && !((Enemy) userDataA).isShot) {
-                    // System.out.println("Bullet hit enemy");
-                    ((Enemy) userDataA).dead();
-                    removeBodiesQueue(fixtureA);
-                }
-
-                if (userDataA instanceof EnemyBullet && userDataB instanceof Player) {
-                    // System.out.println("Bullet hit enemy");
-                    ((Player) userDataB).dead();
-                } else if (userDataA instanceof Player && userDataB instanceof EnemyBullet) {
-                    // System.out.println("Bullet hit enemy");
-                    ((Player) userDataA).dead();
-                }
-
-                if (userDataA instanceof Bullet) {
-                    ((Bullet) userDataA).markForRemoval(); // Removes sprite
-                    removeBulletsQueue(fixtureA); // Removes body
-                    //System.out.println("Bullet A marked for removal");
-                } else if (userDataB instanceof Bullet) {
-                    ((Bullet) userDataB).markForRemoval(); // Removes sprite
-                    removeBulletsQueue(fixtureB); // Removes body
-                    //System.out.println("Bullet B marked for removal");
-                }
-
-                if (userDataA instanceof EnemyBullet) {
-                    ((EnemyBullet) userDataA).markForRemoval(); // Removes sprite
-                    removeBulletsQueue(fixtureA); // Removes body
-                    //System.out.println("Bullet A marked for removal");
-                } else if (userDataB instanceof EnemyBullet) {
-                    ((EnemyBullet) userDataB).markForRemoval(); // Removes sprite
-                    removeBulletsQueue(fixtureB); // Removes body
-                    //System.out.println("Bullet B marked for removal");
-                }
-
+        updateStreaming(); // Load the chunks around the start position before the first tick
 
-            }
-
-            @Override
-            public void endContact(Contact contact) {
+        // One handler per category pair, looked up from a table on every contact
+        ContactDispatcher contacts = new ContactDispatcher();
+        contacts.register(Constants.BULLET_CATEGORY, Constants.ENEMY_CATEGORY, this::bulletHitEnemy);
+        contacts.register(Constants.BULLET_CATEGORY, Constants.TILE_CATEGORY, this::bulletHitTile);
+        contacts.register(Constants.ENEMY_BULLET_CATEGORY, Constants.PLAYER_CATEGORY, this::enemyBulletHitPlayer);
+        contacts.register(Constants.ENEMY_BULLET_CATEGORY, Constants.TILE_CATEGORY, this::bulletHitTile);
+        world.setContactListener(contacts);
 
-            }
-
-            @Override
-            public void preSolve(Contact contact, Manifold oldManifold) {
-                // Handle pre-solve
-            }
+        levelCompleted = false;
+        accumulator = 0f;
+        publishSnapshot(); // So the first frame doesn't draw the previous level
+        levelManager.preloadNext();
+    }
 
-            @Override
-            public void postSolve(Contact contact, ContactImpulse impulse) {
-                // Handle post-solve
-            }
-        });
+    private void createProjectilePools() {
+        final World poolWorld = world;
+        final BodyStateCache poolStates = bodyStates;
+        playerBullets = new ProjectilePool(Constants.PLAYER_BULLET_POOL_SIZE,
+            () -> new Bullet(poolWorld, poolStates), bulletAnimation, bulletWidth, bulletHeight);
+        enemyBullets = new ProjectilePool(Constants.ENEMY_BULLET_POOL_SIZE,
+            () -> new EnemyBullet(poolWorld, poolStates), bulletAnimation, bulletWidth, bulletHeight);
+
+        projectiles = new ProjectileEngine(this::projectileHit, bulletAnimation, bulletWidth, bulletHeight);
+        if (Constants.LIGHTWEIGHT_PROJECTILES) {
+            playerLauncher = projectiles.launcher(Constants.BULLET_CATEGORY,
+                (short) (Constants.TILE_CATEGORY | Constants.ENEMY_CATEGORY), Constants.RAMBO_BULLET_SPEED);
+            enemyLauncher = projectiles.launcher(Constants.ENEMY_BULLET_CATEGORY,
+                (short) (Constants.PLAYER_CATEGORY | Constants.TILE_CATEGORY), Constants.ENEMY_BULLET_SPEED);
+        } else {
+            playerLauncher = playerBullets;
+            enemyLauncher = enemyBullets;
+        }
+        playerHitscan = new HitscanLauncher(world, Constants.BULLET_CATEGORY,
+            (short) (Constants.TILE_CATEGORY | Constants.ENEMY_CATEGORY), this::projectileHit, this::isHitscanTarget, tracerAnimation);
+        entities = new SpatialHash(Constants.SPATIAL_HASH_CELL, Constants.SPATIAL_HASH_BUCKET_BITS);
+        grenades = new GrenadeLauncher(timers, entities, this::projectileHit, bulletAnimation, explosionAnimation, explosionDuration);
+        stressRunning = false;
     }
 
     public void nextLevel() {
@@ -174,16 +242,20 @@ public class PlayingState extends GameState {
 
     private void checkLevelCompletion() {
 
-        float xEnd = abs(player.getBody().getPosition().x - levelManager.getCurrentLevel().levelCompletionPosition.x);
-        float yEnd = abs(player.getBody().getPosition().y - levelManager.getCurrentLevel().levelCompletionPosition.y);
+        float xEnd = abs(player.getX() - levelManager.getCurrentLevel().levelCompletionPosition.x);
+        float yEnd = abs(player.getY() - levelManager.getCurrentLevel().levelCompletionPosition.y);
 
         if(xEnd < 0.2 && yEnd < 0.2) { // *** PPM CHANGE: Replace with level completion check
-            if(levelManager.isFinalLevel()) {
-                // gsm.setState(new GameOverState(gsm, this));
-                System.exit(1);
-            } else {
-                nextLevel();
-            }
+            levelCompleted = true; // Level is swapped outside the tick, it needs the GL thread
+        }
+    }
+
+    private void completeLevel() {
+        if(levelManager.isFinalLevel()) {
+            // gsm.setState(new GameOverState(gsm, this));
+            System.exit(1);
+        } else {
+            nextLevel();
         }
     }
 
@@ -194,62 +266,167 @@ public class PlayingState extends GameState {
     @Override
     public void update(float delta) {
 
-        for (Body bullet : bulletsToRemove) {
-            world.destroyBody(bullet); // Destroy the body (and its fixtures)
+        if (simulationThread != null) {
+            // Simulation ticks on its own thread, only feed it input and swap levels here
+            synchronized (simLock) {
+                handleInput();
+                if (disposed) return;
+                updateStreaming(); // Spawning enemies loads textures, so it stays on the GL thread
+                if (levelCompleted) completeLevel();
+            }
+            return;
         }
-        bulletsToRemove.clear(); // Clear the queue
 
-        for(Body body : bodiesToRemove) {
-            world.destroyBody(body);
+        handleInput();
+        if (disposed) return; // Input switched to another state
+        updateStreaming();
+
+        // Fixed timestep: run as many ticks as the frame time covers
+        accumulator += delta;
+        int steps = 0;
+        while (accumulator >= step && steps < Constants.MAX_SIM_STEPS && !levelCompleted) {
+            tick(step);
+            accumulator -= step;
+            steps++;
+        }
+        if (steps == Constants.MAX_SIM_STEPS && accumulator >= step) {
+            accumulator %= step; // Too far behind, drop the time instead of spiralling
+        }
 
+        if (levelCompleted) {
+            completeLevel();
+        } else if (steps > 0) {
+            publishSnapshot();
         }
-        bodiesToRemove.clear();
+        alpha = accumulator / step;
 
-        checkLevelCompletion();
+    }
 
-        world.step(step, 6, 2);
+    private void updateStreaming() {
+        float viewX = Math.max(player.getX(), 6.25f); // Same out of bounds check as the camera
+        float viewY = Math.max(player.getY(), 3.75f);
+        float viewWidth = camera.viewportWidth * camera.zoom;
+        float viewHeight = camera.viewportHeight * camera.zoom;
 
-        float playerX = player.getBody().getPosition().x;
-        float playerY = player.getBody().getPosition().y;
-        handleInput();
-        player.update(delta);
-        // spawner.update(Gdx.graphics.getDeltaTime(), player.getBody().getPosition());
+        streamer.update(viewX, viewY, viewWidth, viewHeight);
+        spawner.updateTriggers(); // Spawning can build enemies, which loads textures
+        spawner.updateLod(viewX, viewY, viewWidth, viewHeight); // Bodies can't be (de)activated during the step
+    }
 
+    // Called by the SimulationThread, returns false once this state is gone
+    boolean simulateTick() {
+        synchronized (simLock) {
+            if (disposed) return false;
+            if (!levelCompleted) {
+                tick(step);
+                publishSnapshot();
+            }
+            return true;
+        }
+    }
 
-        // Update camera position
+    private void tick(float dt) {
 
-        camera.position.set(
-            (Math.max(playerX, 6.25f)), // Out of bounds check
-            (Math.max(playerY, 3.75f)),
-            0
-        );
+        spawner.parkDeadBodies();
 
-        camera.update();
+        checkLevelCompletion();
+        if (levelCompleted) return;
+
+        // Remember where everything was so render can interpolate
+        bodyStates.savePreviousPositions();
+
+        world.step(dt, 6, 2);
+        bodyStates.refresh(); // Read every body once, everything below uses the cache
+        timers.advance(); // Cooldowns and delays that end this tick, before anyone looks at them
+
+        player.update(dt);
+        spawner.update(dt);
+        playerBullets.update(dt); // Parks bullets that hit something this step
+        playerHitscan.update(dt);
+        enemyBullets.update(dt);
+
+        // Everything alive for area queries, then the grenades that go off this tick
+        entities.clear();
+        if (!player.isShot) {
+            entities.add(player.getX(), player.getY(), player.getHitboxHalfWidth(), player.getHitboxHalfHeight(),
+                Constants.PLAYER_CATEGORY, player);
+        }
+        spawner.addEntities(entities);
+        entities.build();
+        grenades.update(dt);
+
+        // Lightweight projectiles sweep against this tick's positions
+        projectiles.clearTargets();
+        if (!player.isShot) {
+            projectiles.addTarget(player.getX(), player.getY(), player.getHitboxHalfWidth(), player.getHitboxHalfHeight(),
+                Constants.PLAYER_CATEGORY, player);
+        }
+        spawner.addTargets(projectiles);
+        projectiles.step(dt);
+
+        if (stressRunning && projectiles.getLiveCount() == 0) {
+            Gdx.app.log(TAG, "Stress test done: " + projectiles);
+            stressRunning = false;
+        }
 
+    }
+
+    private void publishSnapshot() {
+        RenderSnapshot snapshot = snapshots.getBack();
+        snapshot.clear();
+
+        player.snapshot(snapshot);
+        spawner.snapshot(snapshot);
+        playerBullets.snapshot(snapshot);
+        enemyBullets.snapshot(snapshot);
+        projectiles.snapshot(snapshot);
+        playerHitscan.snapshot(snapshot);
+        grenades.snapshot(snapshot);
+
+        // Camera follows the player, out of bounds check
+        snapshot.setCamera(
+            Math.max(player.getPreviousX(), 6.25f),
+            Math.max(player.getPreviousY(), 3.75f),
+            Math.max(player.getX(), 6.25f),
+            Math.max(player.getY(), 3.75f)
+        );
 
+        snapshot.publishTime = System.nanoTime();
+        snapshots.publish();
     }
 
     @Override
     public void render(SpriteBatch batch) {
 
+        RenderSnapshot snapshot = snapshots.acquireFront();
+        float renderAlpha = alpha;
+        if (simulationThread != null) {
+            // Interpolate by how long ago the simulation published this tick
+            renderAlpha = MathUtils.clamp((System.nanoTime() - snapshot.publishTime) / (step * 1_000_000_000f), 0f, 1f);
+        }
+
+        camera.position.set(snapshot.getCameraX(renderAlpha), snapshot.getCameraY(renderAlpha), 0);
+        camera.update();
+
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         batch.setProjectionMatrix(camera.combined);
-        camera.update();
         batch.begin();
 
         // Render tile map
         renderer.setView(camera);
         renderer.render();
+        lastMapDrawCalls = ((SpriteBatch) renderer.getBatch()).renderCalls;
+        peakMapDrawCalls = Math.max(peakMapDrawCalls, lastMapDrawCalls);
+        totalMapDrawCalls += lastMapDrawCalls;
 
-        // Render player
-        player.update(Gdx.graphics.getDeltaTime());
-        player.render(batch);
-
-        // Render enemies
-        spawner.update(Gdx.graphics.getDeltaTime(), player.getBody().getPosition());
-        spawner.render(batch);
+        // Render player, enemies and bullets
+        snapshot.draw(batch, gsm.assets, renderAlpha);
 
         batch.end();
+        lastDrawCalls = batch.renderCalls; // Entities only, the map renderer has its own batch
+        peakDrawCalls = Math.max(peakDrawCalls, lastDrawCalls);
+        totalDrawCalls += lastDrawCalls;
+        renderedFrames++;
 
         /*********** DEBUGGER **********/
 
@@ -289,8 +466,38 @@ public class PlayingState extends GameState {
                 gsm.setState(new MapEditorState(gsm));
             }
             if (Gdx.input.isKeyJustPressed(Input.Keys.L)){
-                System.out.println("Player X: " + player.getBody().getPosition().x);
-                System.out.println("Player Y: " + player.getBody().getPosition().y);
+                Gdx.app.log(TAG, "Player X: " + player.getX());
+                Gdx.app.log(TAG, "Player Y: " + player.getY());
+                Gdx.app.log(TAG, "Bodies: " + world.getBodyCount() + ", fixtures: " + world.getFixtureCount()
+                    + ", chunks: " + streamer.getLoadedChunks() + "/" + streamer.getChunkCount()
+                    + ", enemies: " + spawner.getEnemyCount() + " (" + spawner.getAwakeCount() + " awake)");
+                Gdx.app.log(TAG, "Player bullets: " + playerBullets);
+                Gdx.app.log(TAG, "Enemy bullets: " + enemyBullets);
+                Gdx.app.log(TAG, "Projectiles: " + projectiles);
+                Gdx.app.log(TAG, "Hitscan: " + playerHitscan);
+                Gdx.app.log(TAG, "Grenades: " + grenades);
+                Gdx.app.log(TAG, "Spatial hash: " + entities);
+                Gdx.app.log(TAG, spawner.getSchedulerStats());
+                Gdx.app.log(TAG, spawner.getSpawnStats());
+                Gdx.app.log(TAG, "Navigation: " + navGraph);
+                Gdx.app.log(TAG, "Timers: " + timers);
+                Gdx.app.log(TAG, "Assets: " + gsm.assets);
+                Gdx.app.log(TAG, "Draw calls: " + lastDrawCalls + " last frame, " + peakDrawCalls + " peak, "
+                    + (renderedFrames > 0 ? totalDrawCalls / renderedFrames : 0) + " average"
+                    + (Constants.USE_TEXTURE_ATLAS ? "" : " (atlas off)"));
+                Gdx.app.log(TAG, "Map draw calls: " + lastMapDrawCalls + " last frame, " + peakMapDrawCalls + " peak, "
+                    + (renderedFrames > 0 ? totalMapDrawCalls / renderedFrames : 0) + " average"
+                    + (map.getProperties().containsKey("atlas") ? "" : " (tileset atlas off)"));
+                if (flowField != null) Gdx.app.log(TAG, "Flow field: " + flowField);
+            }
+            if (Gdx.input.isKeyJustPressed(Input.Keys.G)){
+                player.throwGrenade();
+            }
+            if (Gdx.input.isKeyJustPressed(Input.Keys.H)){
+                player.switchFireMode();
+            }
+            if (Constants.DEBUG_KEYS && Gdx.input.isKeyJustPressed(Input.Keys.K)){
+                stressBurst();
             }
         }
 
@@ -300,127 +507,136 @@ public class PlayingState extends GameState {
     /******* Create collision tiles *******/
 
     private void createCollisionTiles() {
-        TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get("Solid");
-        float tileWidth = layer.getTileWidth() / Constants.PPM;
-        float tileHeight = layer.getTileHeight() / Constants.PPM;
-
-        for (int y = 0; y < layer.getHeight(); y++) {
-            Integer segmentStart = null;
-
-            // Scan through tiles + 1 extra column to catch final segment
-            for (int x = 0; x <= layer.getWidth(); x++) {
-                boolean isSolid = x < layer.getWidth() && layer.getCell(x, y) != null;
-
-                if (isSolid && segmentStart == null) {
-                    // Start new segment
-                    segmentStart = x;
-                }
-                else if (!isSolid && segmentStart != null) {
-                    // End current segment
-                    createSegment(y, segmentStart, x-1, tileWidth, tileHeight);
-                    segmentStart = null;
-                }
-            }
-        }
-    }
+        // Outline every connected solid region instead of one loop per row segment, traced when the level was prepared
+        int width = preparedLevel.width, height = preparedLevel.height;
+        float tileWidth = preparedLevel.tileWidth, tileHeight = preparedLevel.tileHeight;
+        Array<float[]> loops = preparedLevel.loops;
 
-    private void createSegment(int y, int startX, int endX, float tileWidth, float tileHeight) {
-        List<Vector2> vertices = new ArrayList<>();
-
-        // Add start ghost vertex (left edge of first tile's ghost)
-        vertices.add(new Vector2(startX * tileWidth, y * tileHeight));
+        // All loops share a single static body, chunks add and remove their fixtures as the camera moves
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.StaticBody;
+        Body groundBody = world.createBody(bodyDef);
 
-        // Add main platform vertices
-        for (int x = startX; x <= endX + 1; x++) {
-            vertices.add(new Vector2(x * tileWidth, y * tileHeight + tileHeight)); // main platform need to be top of the tile
-        }
-        // Add end ghost vertex (right edge of last tile's ghost)
-        vertices.add(new Vector2((endX + 1) * tileWidth, y * tileHeight));
-
-        // Remove consecutive duplicates
-        List<Vector2> cleaned = new ArrayList<>();
-        Vector2 last = null;
-        for (Vector2 v : vertices) {
-            if (!v.equals(last)) {
-                cleaned.add(v);
-                last = v;
-            }
-        }
+        // Built once per level, shared by projectiles and enemy AI
+        tileGrid = preparedLevel.tileGrid;
+        projectiles.setTileGrid(tileGrid);
+        grenades.setTileGrid(tileGrid);
+        navGraph = preparedLevel.navGraph;
+        spawner.setTileGrid(tileGrid); // Before the streamer spawns the first enemies
+        spawner.setNavGraph(navGraph);
+        flowField = Constants.FLOW_FIELD_CHASE ? new FlowField(navGraph, tileGrid, Constants.FLOW_FIELD_RANGE) : null;
+        spawner.setFlowField(flowField);
+
+        streamer = new ChunkStreamer(groundBody, spawner, loops, width, height, tileWidth, tileHeight);
+
+        Gdx.app.debug(TAG, "Collision: " + CollisionBaker.rowSegmentStats(preparedLevel.solid, width, height)
+            + " per row -> " + CollisionBaker.outlineStats(loops) + " baked, "
+            + streamer.getChunkCount() + " chunks");
+        Gdx.app.debug(TAG, "Navigation: " + navGraph.getStats());
+    }
 
-        if (cleaned.size() >= 2) {
-            createChainBody(cleaned);
+    /******* Projectile stress test *******/
+
+    // Fires a ring of lightweight projectiles from the player, the result is logged once the last one is gone
+    private void stressBurst() {
+        projectiles.resetStats();
+        int count = Constants.PROJECTILE_STRESS_COUNT;
+        for (int i = 0; i < count; i++) {
+            float angle = MathUtils.PI2 * i / count;
+            projectiles.fire(player.getX(), player.getY(),
+                MathUtils.cos(angle) * Constants.RAMBO_BULLET_SPEED, MathUtils.sin(angle) * Constants.RAMBO_BULLET_SPEED,
+                Constants.RAMBO_BULLET_DISTANCE, Constants.BULLET_CATEGORY, (short) (Constants.TILE_CATEGORY | Constants.ENEMY_CATEGORY));
         }
+        stressRunning = true;
+        Gdx.app.log(TAG, "Stress test: fired " + count + " projectiles");
     }
 
-    private void createChainBody(List<Vector2> vertices) {
-        ChainShape chain = new ChainShape();
-        Vector2[] vertArray = vertices.toArray(new Vector2[0]);
-        chain.createLoop(vertArray);
+    /******* Contact handlers *******/
 
-        BodyDef bodyDef = new BodyDef();
-        bodyDef.type = BodyDef.BodyType.StaticBody;
-        Body groundBody = world.createBody(bodyDef);
+    // Bullets are only marked here, their pool parks them after the step
 
-        FixtureDef fixtureDef = new FixtureDef();
-        fixtureDef.shape = chain;
-        fixtureDef.friction = 0.4f;
+    private void bulletHitEnemy(Fixture bulletFixture, Fixture enemyFixture) {
+        Bullet bullet = (Bullet) bulletFixture.getUserData();
+        if (bullet.isMarkedForRemoval()) return; // Already spent on something else this step
 
-        fixtureDef.filter.categoryBits = Constants.TILE_CATEGORY;
-        fixtureDef.filter.maskBits = Constants.PLAYER_CATEGORY | Constants.ENEMY_CATEGORY | Constants.BULLET_CATEGORY | Constants.ENEMY_BULLET_CATEGORY;
+        enemyShot((Enemy) enemyFixture.getUserData());
+        bullet.markHit();
+    }
+
+    private void bulletHitTile(Fixture bulletFixture, Fixture other) {
+        ((Bullet) bulletFixture.getUserData()).markForRemoval();
+    }
 
-        Fixture fixture = groundBody.createFixture(fixtureDef);
-        fixture.setUserData("ground");
+    private void enemyBulletHitPlayer(Fixture bulletFixture, Fixture playerFixture) {
+        Bullet bullet = (Bullet) bulletFixture.getUserData();
+        if (bullet.isMarkedForRemoval()) return;
 
-        chain.dispose();
+        ((Player) playerFixture.getUserData()).dead();
+        bullet.markHit();
     }
 
-    public void removeBulletsQueue(Fixture fixture) {
-        Body bulletBody = fixture.getBody();
-        bulletsToRemove.add(bulletBody);
+    // ProjectileEngine hits end up in the same place as Box2D contacts
+    private void projectileHit(short projectileCategory, short targetCategory, Object target) {
+        if (targetCategory == Constants.ENEMY_CATEGORY) {
+            enemyShot((Enemy) target);
+        } else if (targetCategory == Constants.PLAYER_CATEGORY) {
+            ((Player) target).dead();
+        }
     }
 
-    public void removeBodiesQueue(Fixture fixture) {
-        Body body = fixture.getBody();
-        bodiesToRemove.add(body);
+    private void enemyShot(Enemy enemy) {
+        if (!enemy.isShot()) {
+            enemy.dead(); // Its body is parked at the start of the next tick, the pool reuses it
+        }
     }
 
     public void resetPosition() {
-        player.getBody().setTransform(levelManager.getCurrentLevel().playerStartPosition, 0);
+        grenades.cancel(); // Respawning, nothing thrown before still goes off
+        player.setPosition(levelManager.getCurrentLevel().playerStartPosition); // Teleport, don't interpolate
     }
 
+    // Restarts the current level, set up the same way as when it was entered
     public void resetWorld() {
-        // 1. Destroy old world
-        if(world != null) {
-            world.dispose();
+        synchronized (simLock) {
+            initializeLevel();
         }
-
-        // 2. Create new world
-        world = new World(new Vector2(0, Constants.GRAVITY), true);
-
-        // 3. Reinitialize everything
-        player = new Player(world, 100/Constants.PPM, 300/Constants.PPM, 32/Constants.PPM, 32/Constants.PPM, bulletsToRemove, this);
-        spawner = new EnemySpawner(world, player, bulletsToRemove);
-
-        // 4. Recreate collision tiles
-        createCollisionTiles();
-
-        // 5. Reset other state
-        bulletsToRemove.clear();
-        bodiesToRemove.clear();
-
     }
 
     private boolean isDeadEnemy(Fixture fixture) {
         Object userData = fixture.getUserData();
-        return (userData instanceof Enemy && ((Enemy) userData).isShot);
+        return (userData instanceof Enemy && ((Enemy) userData).isShot());
+    }
+
+    // Rays pass through enemies that are already down
+    private boolean isHitscanTarget(Fixture fixture) {
+        return !isDeadEnemy(fixture);
+    }
+
+    // The map with its tilesets merged into one page by ./gradlew :lwjgl3:packMaps, the original TMX if off or not packed
+    private TiledMap loadMap(String mapFile) {
+        String packed = MAP_ATLAS_ROOT + mapFile;
+        if (Constants.USE_MAP_ATLAS && Gdx.files.internal(packed).exists()) return new AtlasTmxMapLoader().load(packed);
+        return new TmxMapLoader().load(mapFile);
     }
 
     @Override
     public void dispose() {
-        world.dispose();
-        debugRenderer.dispose();
-        renderer.dispose();
-        map.dispose();
-        world.setContactListener(null);
+        if (simulationThread != null) {
+            simulationThread.shutdown();
+        }
+        synchronized (simLock) {
+            disposed = true;
+            world.dispose();
+            debugRenderer.dispose();
+            renderer.dispose();
+            map.dispose();
+            player.dispose();
+            spawner.dispose();
+            levelManager.dispose();
+            gsm.assets.release(EFFECTS);
+            gsm.assets.releaseAnimation(tracerAnimation);
+            tracerTexture.dispose();
+            world.setContactListener(null);
+        }
     }
 }
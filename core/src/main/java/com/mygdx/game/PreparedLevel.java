@@ -0,0 +1,76 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Everything about a level that doesn't need the GL thread or its Box2D world: the map with its
+ * images decoded, the Solid layer, the collision loops and the navigation built from them.
+ * LevelManager makes one for the next level on its loader thread while the current one is played,
+ * so starting that level only uploads the textures and builds the world and its entities.
+ */
+public class PreparedLevel {
+
+    public final Level level;
+    public final boolean[] solid;
+    public final int width, height; // Tiles
+    public final float tileWidth, tileHeight; // Meters
+    public final Array<float[]> loops;
+    public final TileGrid tileGrid;
+    public final NavGraph navGraph; // Its path lookups are sim thread only, the loader just bakes it
+    public long prepareNanos;
+
+    private final LevelBundle.MapLoad mapLoad; // Null if the map came from the TMX
+    private final TiledMap map;
+
+    private PreparedLevel(Level level, LevelBundle.MapLoad mapLoad, TiledMap map, Array<float[]> loops) {
+        this.level = level;
+        this.mapLoad = mapLoad;
+        this.map = map;
+
+        TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get("Solid");
+        width = layer.getWidth();
+        height = layer.getHeight();
+        tileWidth = layer.getTileWidth() / Constants.PPM;
+        tileHeight = layer.getTileHeight() / Constants.PPM;
+
+        // Compiled levels come with their loops traced
+        solid = CollisionBaker.solidCells(layer);
+        this.loops = loops != null ? loops : CollisionBaker.traceOutlines(solid, width, height, tileWidth, tileHeight);
+        tileGrid = new TileGrid(solid, width, height, tileWidth, tileHeight);
+        navGraph = new NavGraph(tileGrid);
+    }
+
+    // Any thread
+    public static PreparedLevel fromBundle(Level level) {
+        long start = System.nanoTime();
+        LevelBundle.MapLoad mapLoad = level.bundle.startMap();
+        PreparedLevel prepared = new PreparedLevel(level, mapLoad, mapLoad.getMap(), level.bundle.loops);
+        prepared.prepareNanos = System.nanoTime() - start;
+        return prepared;
+    }
+
+    // GL thread, for a map the TMX loaders already made textures for
+    public static PreparedLevel fromMap(Level level, TiledMap map) {
+        long start = System.nanoTime();
+        PreparedLevel prepared = new PreparedLevel(level, null, map, null);
+        prepared.prepareNanos = System.nanoTime() - start;
+        return prepared;
+    }
+
+    public boolean isBundled() {
+        return mapLoad != null;
+    }
+
+    // GL thread. The caller owns the map from here on.
+    public TiledMap finishMap() {
+        return mapLoad != null ? mapLoad.finish() : map;
+    }
+
+    // For a level that is never started, its images are freed without touching GL
+    public void discard() {
+        if (mapLoad != null) mapLoad.cancel();
+        else map.dispose();
+    }
+}
@@ -0,0 +1,252 @@
+package com.mygdx.game;
+
+/**
+ * Straight-flying projectiles without Box2D. Every projectile is a row in a set of
+ * primitive arrays and each tick is a swept segment test against the TileGrid and the
+ * target boxes registered for that tick, so thousands of them cost less than a
+ * handful of Box2D bullet bodies.
+ * Categories and masks use the same bits as the Box2D filters (Constants.*_CATEGORY).
+ */
+public class ProjectileEngine {
+
+    public interface HitListener {
+        // Same moment the ContactListener would report the bullet touching the target
+        void projectileHit(short projectileCategory, short targetCategory, Object target);
+    }
+
+    private static final float RADIUS = 0.1f; // Same as the Box2D bullet circle
+
+    private TileGrid grid;
+    private final HitListener listener;
+    private final int animation; // Assets id
+    private final float width, height; // Sprite size, meters
+    private float stateTime;
+
+    // Live projectiles are packed at the front, removal swaps in the last one
+    private int count;
+    private float[] x, y, prevX, prevY, velocityX, velocityY, range;
+    private short[] category, mask;
+
+    // Target boxes, rebuilt every tick before step()
+    private int targetCount;
+    private float[] targetMinX, targetMinY, targetMaxX, targetMaxY;
+    private short[] targetCategory;
+    private Object[] targetData;
+
+    // Stats
+    public int fired, hits, tileHits, expired;
+    public int peakLive;
+    public long stepNanos;
+    public int stepCount;
+
+    public ProjectileEngine(HitListener listener, int animation, float width, float height) {
+        this.listener = listener;
+        this.animation = animation;
+        this.width = width;
+        this.height = height;
+        allocate(256);
+        allocateTargets(32);
+    }
+
+    public void setTileGrid(TileGrid grid) {
+        this.grid = grid;
+    }
+
+    private void allocate(int capacity) {
+        x = copy(x, capacity);
+        y = copy(y, capacity);
+        prevX = copy(prevX, capacity);
+        prevY = copy(prevY, capacity);
+        velocityX = copy(velocityX, capacity);
+        velocityY = copy(velocityY, capacity);
+        range = copy(range, capacity);
+        short[] oldCategory = category, oldMask = mask;
+        category = new short[capacity];
+        mask = new short[capacity];
+        if (oldCategory != null) {
+            System.arraycopy(oldCategory, 0, category, 0, count);
+            System.arraycopy(oldMask, 0, mask, 0, count);
+        }
+    }
+
+    private void allocateTargets(int capacity) {
+        targetMinX = copy(targetMinX, capacity);
+        targetMinY = copy(targetMinY, capacity);
+        targetMaxX = copy(targetMaxX, capacity);
+        targetMaxY = copy(targetMaxY, capacity);
+        short[] oldCategory = targetCategory;
+        Object[] oldData = targetData;
+        targetCategory = new short[capacity];
+        targetData = new Object[capacity];
+        if (oldCategory != null) {
+            System.arraycopy(oldCategory, 0, targetCategory, 0, targetCount);
+            System.arraycopy(oldData, 0, targetData, 0, targetCount);
+        }
+    }
+
+    private float[] copy(float[] old, int capacity) {
+        float[] array = new float[capacity];
+        if (old != null) System.arraycopy(old, 0, array, 0, Math.min(old.length, capacity));
+        return array;
+    }
+
+    public void fire(float px, float py, float vx, float vy, float maxDistance, short projectileCategory, short projectileMask) {
+        if (count == x.length) allocate(count * 2);
+
+        int i = count++;
+        x[i] = prevX[i] = px;
+        y[i] = prevY[i] = py;
+        velocityX[i] = vx;
+        velocityY[i] = vy;
+        range[i] = maxDistance;
+        category[i] = projectileCategory;
+        mask[i] = projectileMask;
+
+        fired++;
+        peakLive = Math.max(peakLive, count);
+    }
+
+    // Launcher with the same spawn offsets and speed as the Box2D bullets of that faction
+    public ProjectileLauncher launcher(short projectileCategory, short projectileMask, float speed) {
+        return (px, py, isFacingLeft) -> {
+            fire(px + (isFacingLeft ? -Constants.RAMBO_BULLET_XOFFSET : Constants.RAMBO_BULLET_XOFFSET),
+                py - Constants.RAMBO_BULLET_YOFFSET,
+                isFacingLeft ? -speed : speed, 0,
+                Constants.RAMBO_BULLET_DISTANCE, projectileCategory, projectileMask);
+            return true;
+        };
+    }
+
+    public void clearTargets() {
+        for (int i = 0; i < targetCount; i++) targetData[i] = null;
+        targetCount = 0;
+    }
+
+    // Box around a center, grown by the projectile radius so the sweep can treat projectiles as points
+    public void addTarget(float centerX, float centerY, float halfWidth, float halfHeight, short categoryBits, Object data) {
+        if (targetCount == targetMinX.length) allocateTargets(targetCount * 2);
+
+        int j = targetCount++;
+        targetMinX[j] = centerX - halfWidth - RADIUS;
+        targetMinY[j] = centerY - halfHeight - RADIUS;
+        targetMaxX[j] = centerX + halfWidth + RADIUS;
+        targetMaxY[j] = centerY + halfHeight + RADIUS;
+        targetCategory[j] = categoryBits;
+        targetData[j] = data;
+    }
+
+    public void step(float dt) {
+        long start = System.nanoTime();
+        stateTime += dt;
+
+        int i = 0;
+        while (i < count) {
+            float px = x[i], py = y[i];
+            float dx = velocityX[i] * dt, dy = velocityY[i] * dt;
+            prevX[i] = px;
+            prevY[i] = py;
+
+            // Earliest of the first solid tile and the first target box along this tick's path
+            float hitTime = grid != null ? grid.castSegment(px, py, px + dx, py + dy) : TileGrid.NO_HIT;
+            int hitTarget = -1;
+            short projectileMask = mask[i];
+            for (int j = 0; j < targetCount; j++) {
+                if ((targetCategory[j] & projectileMask) == 0) continue;
+                float t = sweepBox(px, py, dx, dy, j);
+                if (t < hitTime) {
+                    hitTime = t;
+                    hitTarget = j;
+                }
+            }
+
+            if (hitTime <= 1f) {
+                if (hitTarget >= 0) {
+                    hits++;
+                    listener.projectileHit(category[i], targetCategory[hitTarget], targetData[hitTarget]);
+                } else {
+                    tileHits++;
+                }
+                remove(i);
+                continue;
+            }
+
+            x[i] = px + dx;
+            y[i] = py + dy;
+            range[i] -= (float) Math.sqrt(dx * dx + dy * dy);
+            if (range[i] <= 0) {
+                expired++;
+                remove(i);
+                continue;
+            }
+            i++;
+        }
+
+        stepNanos += System.nanoTime() - start;
+        stepCount++;
+    }
+
+    // Slab test, returns the fraction 0..1 of the move where the box is entered, or NO_HIT
+    private float sweepBox(float px, float py, float dx, float dy, int j) {
+        float tEnter = 0f, tExit = 1f;
+
+        if (dx == 0) {
+            if (px < targetMinX[j] || px > targetMaxX[j]) return TileGrid.NO_HIT;
+        } else {
+            float t1 = (targetMinX[j] - px) / dx;
+            float t2 = (targetMaxX[j] - px) / dx;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+
+        if (dy == 0) {
+            if (py < targetMinY[j] || py > targetMaxY[j]) return TileGrid.NO_HIT;
+        } else {
+            float t1 = (targetMinY[j] - py) / dy;
+            float t2 = (targetMaxY[j] - py) / dy;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+
+        return tEnter <= tExit ? tEnter : TileGrid.NO_HIT;
+    }
+
+    private void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        prevX[i] = prevX[last];
+        prevY[i] = prevY[last];
+        velocityX[i] = velocityX[last];
+        velocityY[i] = velocityY[last];
+        range[i] = range[last];
+        category[i] = category[last];
+        mask[i] = mask[last];
+    }
+
+    public void snapshot(RenderSnapshot snapshot) {
+        if (count == 0) return;
+
+        for (int i = 0; i < count; i++) {
+            snapshot.addSprite(animation, stateTime, true, false,
+                prevX[i] - width / 2f, prevY[i] - height / 2f, x[i] - width / 2f, y[i] - height / 2f, width, height);
+        }
+    }
+
+    public int getLiveCount() {
+        return count;
+    }
+
+    public void resetStats() {
+        fired = hits = tileHits = expired = 0;
+        peakLive = count;
+        stepNanos = 0;
+        stepCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        float averageMicros = stepCount > 0 ? stepNanos / 1000f / stepCount : 0f;
+        return "fired " + fired + ", hits " + hits + ", tile hits " + tileHits + ", expired " + expired
+            + ", live " + count + " (peak " + peakLive + "), " + String.format("%.1f", averageMicros) + " us/tick";
+    }
+}
@@ -0,0 +1,8 @@
+package com.mygdx.game;
+
+// Anything guns can fire through: a Box2D ProjectilePool or a ProjectileEngine faction
+public interface ProjectileLauncher {
+
+    // Returns false when the shot was dropped
+    boolean fire(float x, float y, boolean isFacingLeft);
+}
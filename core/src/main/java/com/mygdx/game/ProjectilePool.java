@@ -0,0 +1,86 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Fixed set of bullet bodies for one faction, created up front and parked inactive.
+ * Firing re-arms a parked bullet, hits and misses park it again after the step,
+ * so shooting never creates or destroys Box2D bodies.
+ */
+public class ProjectilePool implements ProjectileLauncher {
+
+    public interface Factory {
+        Bullet create();
+    }
+
+    private final Array<Bullet> free;
+    private final Array<Bullet> active;
+    private final int animation; // Assets id
+    private final float width, height; // Sprite size, meters
+    private float stateTime;
+
+    // Counters since the pool was created
+    public int fired;
+    public int hits; // Struck a character
+    public int misses; // Hit a wall or ran out of range
+    public int exhausted; // Shots dropped because every bullet was in flight
+
+    public ProjectilePool(int capacity, Factory factory, int animation, float width, float height) {
+        this.free = new Array<>(capacity);
+        this.active = new Array<>(false, capacity);
+        this.animation = animation;
+        this.width = width;
+        this.height = height;
+        for (int i = 0; i < capacity; i++) {
+            free.add(factory.create());
+        }
+    }
+
+    // Returns false when the pool is exhausted
+    @Override
+    public boolean fire(float x, float y, boolean isFacingLeft) {
+        if (free.size == 0) {
+            exhausted++;
+            return false;
+        }
+        Bullet bullet = free.pop();
+        bullet.fire(x, y, isFacingLeft);
+        active.add(bullet);
+        fired++;
+        return true;
+    }
+
+    // After world.step(), parks every bullet that hit something or went out of range
+    public void update(float delta) {
+        stateTime += delta;
+
+        for (int i = active.size - 1; i >= 0; i--) {
+            Bullet bullet = active.get(i);
+            bullet.update(delta);
+            if (bullet.isMarkedForRemoval()) {
+                if (bullet.hasHitTarget()) hits++;
+                else misses++;
+
+                bullet.park();
+                active.removeIndex(i); // Unordered, so this is a swap with the last bullet
+                free.add(bullet);
+            }
+        }
+    }
+
+    public void snapshot(RenderSnapshot snapshot) {
+        for (int i = 0; i < active.size; i++) {
+            active.get(i).snapshot(snapshot, animation, stateTime, width, height);
+        }
+    }
+
+    public int getActiveCount() {
+        return active.size;
+    }
+
+    @Override
+    public String toString() {
+        return "fired " + fired + ", hits " + hits + ", misses " + misses + ", exhausted " + exhausted
+            + ", in flight " + active.size + "/" + (active.size + free.size);
+    }
+}
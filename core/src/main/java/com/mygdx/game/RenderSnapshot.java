@@ -0,0 +1,116 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Everything the render side needs to draw one simulation tick.
+ * Written by the simulation, then only read once it has been published through a {@link SnapshotBuffer}.
+ * Sprites keep their position before and after the tick so render can interpolate between them.
+ * Animations are Assets ids with a state time, the frame is only looked up by draw() on the GL thread:
+ * getKeyFrame() caches the last frame inside the shared Animation, so the simulation must not call it.
+ */
+public class RenderSnapshot {
+
+    public int spriteCount;
+
+    private int[] animations; // Assets animation ids
+    private float[] stateTimes;
+    private boolean[] looping;
+    private boolean[] flipped;
+    private float[] prevX, prevY, x, y;
+    private float[] width, height;
+
+    public float prevCameraX, prevCameraY;
+    public float cameraX, cameraY;
+    public long publishTime; // System.nanoTime() of the tick this snapshot holds
+
+    public RenderSnapshot() {
+        allocate(64);
+    }
+
+    private void allocate(int capacity) {
+        int[] oldAnimations = animations;
+        float[] oldStateTimes = stateTimes;
+        boolean[] oldLooping = looping, oldFlipped = flipped;
+        float[] oldPrevX = prevX, oldPrevY = prevY, oldX = x, oldY = y, oldWidth = width, oldHeight = height;
+
+        animations = new int[capacity];
+        stateTimes = new float[capacity];
+        looping = new boolean[capacity];
+        flipped = new boolean[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        width = new float[capacity];
+        height = new float[capacity];
+
+        if (oldAnimations != null) {
+            System.arraycopy(oldAnimations, 0, animations, 0, spriteCount);
+            System.arraycopy(oldStateTimes, 0, stateTimes, 0, spriteCount);
+            System.arraycopy(oldLooping, 0, looping, 0, spriteCount);
+            System.arraycopy(oldFlipped, 0, flipped, 0, spriteCount);
+            System.arraycopy(oldPrevX, 0, prevX, 0, spriteCount);
+            System.arraycopy(oldPrevY, 0, prevY, 0, spriteCount);
+            System.arraycopy(oldX, 0, x, 0, spriteCount);
+            System.arraycopy(oldY, 0, y, 0, spriteCount);
+            System.arraycopy(oldWidth, 0, width, 0, spriteCount);
+            System.arraycopy(oldHeight, 0, height, 0, spriteCount);
+        }
+    }
+
+    public void clear() {
+        spriteCount = 0;
+    }
+
+    public void addSprite(int animation, float stateTime, boolean loop, boolean flip,
+                          float prevX, float prevY, float x, float y, float width, float height) {
+        if (spriteCount == animations.length) {
+            allocate(spriteCount * 2);
+        }
+        int i = spriteCount++;
+        this.animations[i] = animation;
+        this.stateTimes[i] = stateTime;
+        this.looping[i] = loop;
+        this.flipped[i] = flip;
+        this.prevX[i] = prevX;
+        this.prevY[i] = prevY;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.width[i] = width;
+        this.height[i] = height;
+    }
+
+    public void setCamera(float prevX, float prevY, float x, float y) {
+        this.prevCameraX = prevX;
+        this.prevCameraY = prevY;
+        this.cameraX = x;
+        this.cameraY = y;
+    }
+
+    public float getCameraX(float alpha) {
+        return prevCameraX + (cameraX - prevCameraX) * alpha;
+    }
+
+    public float getCameraY(float alpha) {
+        return prevCameraY + (cameraY - prevCameraY) * alpha;
+    }
+
+    public void draw(SpriteBatch batch, Assets assets, float alpha) {
+        for (int i = 0; i < spriteCount; i++) {
+            Animation<TextureRegion> animation = assets.getAnimation(animations[i]);
+            if (animation == null) continue; // Released since this tick, its level is gone
+            TextureRegion frame = animation.getKeyFrame(stateTimes[i], looping[i]);
+            float drawX = prevX[i] + (x[i] - prevX[i]) * alpha;
+            float drawY = prevY[i] + (y[i] - prevY[i]) * alpha;
+
+            if (flipped[i]) {
+                batch.draw(frame, drawX + width[i], drawY, -width[i], height[i]); // Negative width mirrors the frame
+            } else {
+                batch.draw(frame, drawX, drawY, width[i], height[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mygdx.game;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs PlayingState ticks at a fixed rate off the GL thread.
+ * Each tick publishes a RenderSnapshot, the GL thread only draws those.
+ */
+public class SimulationThread extends Thread {
+
+    private final PlayingState playingState;
+    private final long stepNanos;
+    private volatile boolean running = true;
+
+    public SimulationThread(PlayingState playingState, float step) {
+        super("Simulation");
+        this.playingState = playingState;
+        this.stepNanos = (long) (step * 1_000_000_000L);
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime();
+
+        while (running) {
+            if (!playingState.simulateTick()) {
+                break; // State was disposed
+            }
+
+            nextTick += stepNanos;
+            long wait = nextTick - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (-wait > stepNanos * Constants.MAX_SIM_STEPS) {
+                nextTick = System.nanoTime(); // Too far behind, drop the time instead of spiralling
+            }
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(this);
+    }
+}
@@ -0,0 +1,39 @@
+package com.mygdx.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer of render snapshots.
+ * The simulation always owns the back snapshot and the renderer always owns the front one,
+ * so neither side ever waits for the other. Publishing swaps the back with the middle slot,
+ * acquiring swaps the middle with the front if something new was published.
+ */
+public class SnapshotBuffer {
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4; // Middle slot holds a snapshot the renderer hasn't seen yet
+
+    private final RenderSnapshot[] snapshots = {new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    // Simulation side
+
+    public RenderSnapshot getBack() {
+        return snapshots[back];
+    }
+
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    // Render side
+
+    public RenderSnapshot acquireFront() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return snapshots[front];
+    }
+}
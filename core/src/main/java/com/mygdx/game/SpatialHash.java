@@ -0,0 +1,207 @@
+package com.mygdx.game;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over every live entity, for "what is within r meters of this point" without Box2D.
+ * Entities are added as boxes each tick and build() counting-sorts them by the cell their center
+ * falls in, hashed into a fixed bucket table, so the whole rebuild is a few linear passes and never
+ * allocates once the arrays have grown. Queries expand by the largest half extent seen,
+ * walk the covered cells and test the boxes exactly. Results are entity indices written to a
+ * caller-owned IntArray, valid until the next clear().
+ * Categories use the same bits as the Box2D filters (Constants.*_CATEGORY).
+ */
+public class SpatialHash {
+
+    private final float cellSize;
+    private final int bucketMask;
+
+    // Entities as added, until the next clear()
+    private int count;
+    private float[] x, y, halfWidth, halfHeight;
+    private short[] category;
+    private Object[] data;
+    private float maxHalfExtent;
+
+    // Counting sort output: bucket b holds sorted[bucketStart[b]] until sorted[bucketStart[b + 1]]
+    private final int[] bucketStart, bucketFill;
+    private int[] bucket, sorted;
+
+    // Neighbouring cells can share a bucket, an entity is reported once per query
+    private int[] stamp;
+    private int queryStamp;
+
+    // Stats
+    public long queries, tested, found, buildNanos;
+    public int builds;
+
+    public SpatialHash(float cellSize, int bucketBits) {
+        this.cellSize = cellSize;
+        this.bucketMask = (1 << bucketBits) - 1;
+        bucketStart = new int[(1 << bucketBits) + 1];
+        bucketFill = new int[1 << bucketBits];
+        allocate(64);
+    }
+
+    private void allocate(int capacity) {
+        x = copy(x, new float[capacity]);
+        y = copy(y, new float[capacity]);
+        halfWidth = copy(halfWidth, new float[capacity]);
+        halfHeight = copy(halfHeight, new float[capacity]);
+        category = copy(category, new short[capacity]);
+        data = copy(data, new Object[capacity]);
+        bucket = new int[capacity];
+        sorted = new int[capacity];
+        stamp = new int[capacity];
+    }
+
+    private <T> T copy(T from, T to) {
+        if (from != null) System.arraycopy(from, 0, to, 0, count);
+        return to;
+    }
+
+    /******* Building, once per tick *******/
+
+    public void clear() {
+        for (int i = 0; i < count; i++) data[i] = null; // Don't keep pooled entities alive
+        count = 0;
+        maxHalfExtent = 0;
+    }
+
+    public void add(float centerX, float centerY, float halfWidth, float halfHeight, short categoryBits, Object data) {
+        if (count == x.length) allocate(count * 2);
+        int i = count++;
+        this.x[i] = centerX;
+        this.y[i] = centerY;
+        this.halfWidth[i] = halfWidth;
+        this.halfHeight[i] = halfHeight;
+        this.category[i] = categoryBits;
+        this.data[i] = data;
+        maxHalfExtent = Math.max(maxHalfExtent, Math.max(halfWidth, halfHeight));
+    }
+
+    public void build() {
+        long start = System.nanoTime();
+        Arrays.fill(bucketStart, 0);
+        for (int i = 0; i < count; i++) {
+            int b = bucketOf(cell(x[i]), cell(y[i]));
+            bucket[i] = b;
+            bucketStart[b + 1]++;
+        }
+        for (int b = 0; b < bucketFill.length; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+            bucketFill[b] = bucketStart[b];
+        }
+        for (int i = 0; i < count; i++) {
+            sorted[bucketFill[bucket[i]]++] = i;
+        }
+        builds++;
+        buildNanos += System.nanoTime() - start;
+    }
+
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private int bucketOf(int cellX, int cellY) {
+        return (cellX * 73856093 ^ cellY * 19349663) & bucketMask;
+    }
+
+    /******* Queries, sim thread only *******/
+
+    // Entities whose box touches the circle, results are cleared first
+    public void queryRadius(float centerX, float centerY, float radius, short mask, IntArray results) {
+        query(centerX - radius, centerY - radius, centerX + radius, centerY + radius, centerX, centerY, radius, mask, results);
+    }
+
+    // Entities whose box overlaps the given box, results are cleared first
+    public void queryBox(float minX, float minY, float maxX, float maxY, short mask, IntArray results) {
+        query(minX, minY, maxX, maxY, 0, 0, -1, mask, results);
+    }
+
+    private void query(float minX, float minY, float maxX, float maxY, float circleX, float circleY, float radius,
+                       short mask, IntArray results) {
+        results.clear();
+        queries++;
+        if (count == 0) return;
+        if (++queryStamp == 0) {
+            Arrays.fill(stamp, 0);
+            queryStamp = 1;
+        }
+
+        // Entities are filed by their center, so look as far out as the biggest one reaches
+        int firstCellX = cell(minX - maxHalfExtent), lastCellX = cell(maxX + maxHalfExtent);
+        int firstCellY = cell(minY - maxHalfExtent), lastCellY = cell(maxY + maxHalfExtent);
+        long cells = (long) (lastCellX - firstCellX + 1) * (lastCellY - firstCellY + 1);
+
+        if (cells > bucketFill.length) {
+            // Covers more cells than there are buckets, every bucket once is cheaper
+            for (int b = 0; b < bucketFill.length; b++) {
+                testBucket(b, minX, minY, maxX, maxY, circleX, circleY, radius, mask, results);
+            }
+            return;
+        }
+        for (int cellY = firstCellY; cellY <= lastCellY; cellY++) {
+            for (int cellX = firstCellX; cellX <= lastCellX; cellX++) {
+                testBucket(bucketOf(cellX, cellY), minX, minY, maxX, maxY, circleX, circleY, radius, mask, results);
+            }
+        }
+    }
+
+    private void testBucket(int b, float minX, float minY, float maxX, float maxY, float circleX, float circleY,
+                            float radius, short mask, IntArray results) {
+        for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) {
+            int i = sorted[k];
+            if (stamp[i] == queryStamp) continue;
+            stamp[i] = queryStamp;
+            tested++;
+            if ((category[i] & mask) == 0) continue;
+            if (overlaps(i, minX, minY, maxX, maxY, circleX, circleY, radius)) {
+                results.add(i);
+                found++;
+            }
+        }
+    }
+
+    private boolean overlaps(int i, float minX, float minY, float maxX, float maxY,
+                             float circleX, float circleY, float radius) {
+        float left = x[i] - halfWidth[i], right = x[i] + halfWidth[i];
+        float bottom = y[i] - halfHeight[i], top = y[i] + halfHeight[i];
+        if (right < minX || left > maxX || top < minY || bottom > maxY) return false;
+        if (radius < 0) return true;
+
+        // Closest point of the box to the circle center
+        float dx = circleX - Math.max(left, Math.min(circleX, right));
+        float dy = circleY - Math.max(bottom, Math.min(circleY, top));
+        return dx * dx + dy * dy <= radius * radius;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public float getX(int entity) {
+        return x[entity];
+    }
+
+    public float getY(int entity) {
+        return y[entity];
+    }
+
+    public short getCategory(int entity) {
+        return category[entity];
+    }
+
+    public Object getData(int entity) {
+        return data[entity];
+    }
+
+    @Override
+    public String toString() {
+        return count + " entities, " + builds + " builds, " + (builds > 0 ? buildNanos / builds / 1000f : 0) + " us per build, "
+            + queries + " queries, " + (queries > 0 ? (float) tested / queries : 0) + " tested and "
+            + (queries > 0 ? (float) found / queries : 0) + " found per query";
+    }
+}
@@ -0,0 +1,24 @@
+package com.mygdx.game;
+
+/**
+ * A spot that spawns enemies once the player comes within radius, optionally in waves.
+ * Listed under spawnTriggers in the level JSON; plain enemySpawnPoints become single-enemy triggers.
+ */
+public class SpawnTrigger {
+
+    public float x, y;
+    public float radius = Constants.SPAWN_TRIGGER_RADIUS; // Meters from the player
+    public int count = 1; // Enemies per wave
+    public int waves = 1;
+    public float waveDelay = Constants.SPAWN_WAVE_DELAY; // Seconds between waves
+    public int maxAlive; // This trigger's enemies alive at once, 0 for no cap besides the pool's
+
+    public SpawnTrigger() {
+        // For the JSON reader
+    }
+
+    public SpawnTrigger(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+}
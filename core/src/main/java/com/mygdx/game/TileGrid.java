@@ -0,0 +1,96 @@
+package com.mygdx.game;
+
+/**
+ * Solid tile layer packed one bit per tile, in meters.
+ * Cheap enough to query thousands of times per tick, so projectiles and AI can
+ * ask the map directly instead of going through Box2D.
+ */
+public class TileGrid {
+
+    public static final float NO_HIT = Float.MAX_VALUE;
+
+    public final int width, height; // Tiles
+    public final float tileWidth, tileHeight; // Meters
+    private final long[] bits;
+
+    public TileGrid(boolean[] solid, int width, int height, float tileWidth, float tileHeight) {
+        this.width = width;
+        this.height = height;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+
+        bits = new long[(width * height + 63) >>> 6];
+        for (int i = 0; i < solid.length; i++) {
+            if (solid[i]) bits[i >>> 6] |= 1L << i;
+        }
+    }
+
+    // Outside the map counts as empty
+    public boolean isSolid(int tileX, int tileY) {
+        if (tileX < 0 || tileY < 0 || tileX >= width || tileY >= height) return false;
+        int i = tileY * width + tileX;
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public boolean isSolidAt(float x, float y) {
+        return isSolid(tileX(x), tileY(y));
+    }
+
+    public int tileX(float x) {
+        return (int) Math.floor(x / tileWidth);
+    }
+
+    public int tileY(float y) {
+        return (int) Math.floor(y / tileHeight);
+    }
+
+    // True when no solid tile lies between the two points
+    public boolean hasLineOfSight(float x0, float y0, float x1, float y1) {
+        return castSegment(x0, y0, x1, y1) == NO_HIT;
+    }
+
+    // No floor half a tile under the feet, lookAhead meters in front
+    public boolean isLedgeAhead(float x, float feetY, boolean facingLeft, float lookAhead) {
+        return !isSolidAt(x + (facingLeft ? -lookAhead : lookAhead), feetY - tileHeight / 2);
+    }
+
+    // Solid tile at body height, lookAhead meters in front
+    public boolean isWallAhead(float x, float y, boolean facingLeft, float lookAhead) {
+        return isSolidAt(x + (facingLeft ? -lookAhead : lookAhead), y);
+    }
+
+    /**
+     * Walks the tiles the segment passes through (Amanatides-Woo DDA) and returns
+     * the fraction 0..1 along it where the first solid tile is entered, or NO_HIT.
+     */
+    public float castSegment(float x0, float y0, float x1, float y1) {
+        int tileX = tileX(x0), tileY = tileY(y0);
+        if (isSolid(tileX, tileY)) return 0f;
+
+        float dx = x1 - x0, dy = y1 - y0;
+        int steps = Math.abs(tileX(x1) - tileX) + Math.abs(tileY(y1) - tileY);
+
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        float tDeltaX = dx != 0 ? tileWidth / Math.abs(dx) : NO_HIT;
+        float tDeltaY = dy != 0 ? tileHeight / Math.abs(dy) : NO_HIT;
+        float tMaxX = dx > 0 ? ((tileX + 1) * tileWidth - x0) / dx : dx < 0 ? (tileX * tileWidth - x0) / dx : NO_HIT;
+        float tMaxY = dy > 0 ? ((tileY + 1) * tileHeight - y0) / dy : dy < 0 ? (tileY * tileHeight - y0) / dy : NO_HIT;
+
+        for (int i = 0; i < steps; i++) {
+            float t;
+            if (tMaxX < tMaxY) {
+                t = tMaxX;
+                tMaxX += tDeltaX;
+                tileX += stepX;
+            } else {
+                t = tMaxY;
+                tMaxY += tDeltaY;
+                tileY += stepY;
+            }
+            if (t > 1f) break;
+            if (isSolid(tileX, tileY)) return t;
+        }
+        return NO_HIT;
+    }
+}
@@ -0,0 +1,139 @@
+package com.mygdx.game;
+
+/**
+ * Gameplay timers counted in sim ticks, for cooldowns and delays that used to be floats
+ * decremented every frame. A pending timer costs nothing until its tick comes around:
+ * four levels of 64 slots, near deadlines sit in the bottom level and far ones cascade down
+ * as the wheel turns. Timers are owned by the entity and linked into the slots directly,
+ * so scheduling and cancelling never allocate.
+ *
+ * A timer either runs its action when it fires, or has none and is just polled with
+ * isPending() as a cooldown flag. Sim thread only: enemies read isPending() while they think,
+ * but schedule from commit().
+ */
+public class TimerWheel {
+
+    public static class Timer {
+        private final Runnable action; // Null for cooldowns that are only polled
+        private Timer previous, next; // Slot list links, null while not scheduled
+        private long deadline;
+
+        public Timer() {
+            this(null);
+        }
+
+        public Timer(Runnable action) {
+            this.action = action;
+        }
+
+        public boolean isPending() {
+            return next != null;
+        }
+
+        private void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = next = null;
+        }
+    }
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (SLOTS - 1L) << (SLOT_BITS * (LEVELS - 1)); // About three days at 60 Hz
+
+    private final Timer[][] slots = new Timer[LEVELS][SLOTS]; // Sentinel heads of circular lists
+    private long tick;
+
+    // Stats
+    public int pending;
+    public long scheduled, fired, cancelled, cascaded;
+
+    public TimerWheel() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer head = new Timer();
+                head.previous = head.next = head;
+                slots[level][slot] = head;
+            }
+        }
+    }
+
+    // (Re)starts the timer, it fires on the first tick at least the given seconds from now
+    public void schedule(Timer timer, float seconds) {
+        scheduleTicks(timer, Math.max(1, Math.round(seconds / Constants.SIM_STEP)));
+    }
+
+    public void scheduleTicks(Timer timer, long ticks) {
+        if (timer.isPending()) {
+            timer.unlink();
+        } else {
+            pending++;
+        }
+        timer.deadline = tick + Math.min(Math.max(ticks, 1), MAX_DELAY);
+        insert(timer);
+        scheduled++;
+    }
+
+    public void cancel(Timer timer) {
+        if (!timer.isPending()) return;
+        timer.unlink();
+        pending--;
+        cancelled++;
+    }
+
+    // Seconds until the timer fires, 0 if it isn't pending
+    public float getRemaining(Timer timer) {
+        return timer.isPending() ? (timer.deadline - tick) * Constants.SIM_STEP : 0;
+    }
+
+    // One sim tick: cascade whatever comes into range, then fire the bottom slot
+    public void advance() {
+        tick++;
+
+        int top = 0;
+        while (top + 1 < LEVELS && (tick & ((1L << (SLOT_BITS * (top + 1))) - 1)) == 0) top++;
+        for (int level = top; level >= 1; level--) {
+            Timer head = slots[level][(int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1)];
+            while (head.next != head) {
+                Timer timer = head.next;
+                timer.unlink();
+                insert(timer);
+                cascaded++;
+            }
+        }
+
+        Timer head = slots[0][(int) tick & (SLOTS - 1)];
+        while (head.next != head) {
+            Timer timer = head.next;
+            timer.unlink();
+            pending--;
+            fired++;
+            if (timer.action != null) timer.action.run(); // May reschedule, never into this slot
+        }
+    }
+
+    // Lowest level whose slot for the deadline comes around within one turn of that level
+    private void insert(Timer timer) {
+        int level = 0;
+        while (level + 1 < LEVELS
+            && (timer.deadline >>> (SLOT_BITS * level)) - (tick >>> (SLOT_BITS * level)) >= SLOTS) {
+            level++;
+        }
+        Timer head = slots[level][(int) (timer.deadline >>> (SLOT_BITS * level)) & (SLOTS - 1)];
+        timer.previous = head.previous;
+        timer.next = head;
+        head.previous.next = timer;
+        head.previous = timer;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    @Override
+    public String toString() {
+        return pending + " pending, " + scheduled + " scheduled, " + fired + " fired, " + cancelled + " cancelled, "
+            + cascaded + " cascaded";
+    }
+}
@@ -0,0 +1,156 @@
+package com.mygdx.game.lwjgl3;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.ChainShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.mygdx.game.Assets;
+import com.mygdx.game.BodyStateCache;
+import com.mygdx.game.CollisionBaker;
+import com.mygdx.game.Constants;
+import com.mygdx.game.EnemySpawner;
+import com.mygdx.game.NavGraph;
+import com.mygdx.game.Player;
+import com.mygdx.game.ProjectileEngine;
+import com.mygdx.game.ProjectileLauncher;
+import com.mygdx.game.SpawnTrigger;
+import com.mygdx.game.TileGrid;
+import com.mygdx.game.TimerWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The enemy half of a PlayingState tick, on the real code: Box2D step and body cache, EnemySpawner
+ * scheduling, Enemy think and commit over their EnemyStore rows, and the enemy bullets they fire.
+ * An arena of stacked floors is filled with enemies around the player, all awake so the physics LOD
+ * hides none of them. Assets are loaded through HeadlessGdx, decoded but never uploaded.
+ * Run with: ./gradlew :lwjgl3:jmh --args="EnemyTickBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EnemyTickBenchmark {
+
+    private static final int WIDTH = 400, HEIGHT = 48, FLOOR_SPACING = 8; // Tiles
+    private static final float TILE = 16 / Constants.PPM;
+
+    @Param({"100", "1000"})
+    public int enemies;
+
+    private World world;
+    private BodyStateCache bodyStates;
+    private TimerWheel timers;
+    private Assets assets;
+    private ProjectileEngine projectiles;
+    private Player player;
+    private EnemySpawner spawner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (enemies > Constants.ENEMY_POOL_SIZE) {
+            throw new IllegalArgumentException("At most ENEMY_POOL_SIZE (" + Constants.ENEMY_POOL_SIZE + ") enemies");
+        }
+        HeadlessGdx.init();
+
+        boolean[] solid = arena();
+        TileGrid grid = new TileGrid(solid, WIDTH, HEIGHT, TILE, TILE);
+        world = new World(new Vector2(0, Constants.GRAVITY), true);
+        Body ground = world.createBody(new BodyDef());
+        for (float[] loop : CollisionBaker.traceOutlines(solid, WIDTH, HEIGHT, TILE, TILE)) {
+            ChainShape chain = new ChainShape();
+            chain.createLoop(loop);
+            FixtureDef fixtureDef = new FixtureDef();
+            fixtureDef.shape = chain;
+            fixtureDef.friction = 0.4f;
+            fixtureDef.filter.categoryBits = Constants.TILE_CATEGORY;
+            ground.createFixture(fixtureDef);
+            chain.dispose();
+        }
+
+        bodyStates = new BodyStateCache();
+        timers = new TimerWheel();
+        assets = new Assets();
+        projectiles = new ProjectileEngine((projectileCategory, targetCategory, target) -> { }, -1, 0, 0);
+        projectiles.setTileGrid(grid);
+        ProjectileLauncher playerBullets = projectiles.launcher(Constants.BULLET_CATEGORY,
+            (short) (Constants.TILE_CATEGORY | Constants.ENEMY_CATEGORY), Constants.RAMBO_BULLET_SPEED);
+        ProjectileLauncher enemyBullets = projectiles.launcher(Constants.ENEMY_BULLET_CATEGORY,
+            (short) (Constants.TILE_CATEGORY | Constants.PLAYER_CATEGORY), Constants.ENEMY_BULLET_SPEED);
+
+        float size = 32 / Constants.PPM;
+        player = new Player(world, bodyStates, assets, timers, WIDTH * TILE / 2, floorY(0) + size, size, size,
+            playerBullets, playerBullets, null, null);
+        spawner = new EnemySpawner(world, bodyStates, assets, timers, player, enemyBullets);
+        spawner.setTileGrid(grid);
+        spawner.setNavGraph(new NavGraph(grid));
+
+        // One trigger per enemy, spread over the floors and all in range of the player
+        int floors = HEIGHT / FLOOR_SPACING - 1;
+        int perFloor = (enemies + floors - 1) / floors;
+        Array<SpawnTrigger> triggers = new Array<>();
+        for (int i = 0; i < enemies; i++) {
+            float x = (2 + (i / floors) * (WIDTH - 4f) / perFloor) * TILE;
+            SpawnTrigger trigger = new SpawnTrigger(x, floorY(i % floors) + size / 2);
+            trigger.radius = WIDTH * TILE;
+            triggers.add(trigger);
+        }
+        spawner.setSpawnTriggers(new Array<>(), triggers);
+        for (int i = 0; i < enemies; i++) spawner.arm(i);
+        spawner.updateTriggers();
+    }
+
+    // Border walls plus full-width floors every FLOOR_SPACING rows
+    private static boolean[] arena() {
+        boolean[] solid = new boolean[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                boolean border = x == 0 || y == 0 || x == WIDTH - 1 || y == HEIGHT - 1;
+                solid[y * WIDTH + x] = border || y % FLOOR_SPACING == 0;
+            }
+        }
+        return solid;
+    }
+
+    // Top of the floor-th floor, meters
+    private static float floorY(int floor) {
+        return (floor * FLOOR_SPACING + 1) * TILE;
+    }
+
+    @Benchmark
+    public void tick() {
+        bodyStates.savePreviousPositions();
+        world.step(Constants.SIM_STEP, 6, 2);
+        bodyStates.refresh();
+        timers.advance();
+        spawner.update(Constants.SIM_STEP);
+        projectiles.step(Constants.SIM_STEP);
+        spawner.parkDeadBodies();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        spawner.dispose();
+        player.dispose();
+        world.dispose();
+        assets.dispose();
+    }
+}
@@ -0,0 +1,51 @@
+package com.mygdx.game.lwjgl3;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Audio;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Files;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+
+/**
+ * Just enough of Gdx to build game objects without a window: real files from the working directory,
+ * and an application, graphics, GL and audio that do nothing. Textures are decoded but never uploaded,
+ * sounds never play, so benchmarks can run the real entity code instead of stand-ins.
+ */
+final class HeadlessGdx {
+
+    private HeadlessGdx() {
+    }
+
+    static void init() {
+        GdxNativesLoader.load();
+        Box2D.init();
+        Gdx.files = new Lwjgl3Files();
+        Gdx.app = noOp(Application.class);
+        Gdx.graphics = noOp(Graphics.class);
+        Gdx.gl = Gdx.gl20 = noOp(GL20.class);
+        Gdx.audio = noOp(Audio.class);
+    }
+
+    // Every method returns zero, false or null, and interfaces get a no-op of their own, like the Sound from newSound
+    @SuppressWarnings("unchecked")
+    private static <T> T noOp(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            switch (method.getName()) { // Identity, so they work as map keys
+                case "equals": return proxy == args[0];
+                case "hashCode": return System.identityHashCode(proxy);
+                case "toString": return "no-op " + type.getSimpleName();
+            }
+            Class<?> returns = method.getReturnType();
+            if (returns == void.class) return null;
+            if (returns.isPrimitive()) return Array.get(Array.newInstance(returns, 1), 0);
+            if (returns.isInterface()) return noOp(returns);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,316 @@
+package com.mygdx.game.lwjgl3;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.tiled.BaseTmxMapLoader;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.XmlReader;
+import com.mygdx.game.CollisionBaker;
+import com.mygdx.game.Constants;
+import com.mygdx.game.Level;
+import com.mygdx.game.LevelBundle;
+import com.mygdx.game.SpawnTrigger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ShortBuffer;
+
+/**
+ * Compiles assets/Levels/levelN.json and its map into the LevelBundle the game maps at startup.
+ * Maps packed by MapAtlasPacker are compiled from assets/atlas, the others from their own TMX.
+ * Each level is validated on the way: everything the player or an enemy starts on has to be
+ * inside the map, out of the walls and above solid ground. Any error fails the build.
+ * Run with: ./gradlew :lwjgl3:compileLevels
+ */
+public class LevelCompiler {
+
+    private static final float MAX_SPAWN_DROP = 2f; // Meters from a spawn point down to the ground, the fall after spawning
+    private static final int FLIP_HORIZONTALLY = 0x80000000, FLIP_VERTICALLY = 0x40000000, FLIP_DIAGONALLY = 0x20000000;
+    private static final int MASK_CLEAR = 0x1FFFFFFF;
+
+    // A tileset of the TMX, with where its tiles start
+    private static class SourceTileset {
+        int firstGid, tileCount;
+        LevelBundle.Tileset tileset;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.out.println("Usage: LevelCompiler <assets dir> <output dir>");
+            System.exit(1);
+        }
+        File assets = new File(args[0]), output = new File(args[1]);
+        output.mkdirs();
+
+        int errors = 0;
+        for (int number = 1; new File(assets, "Levels/level" + number + ".json").exists(); number++) {
+            Array<String> levelErrors = new Array<>();
+            LevelBundle bundle = compile(assets, number, levelErrors);
+            for (String error : levelErrors) System.out.println("level" + number + ": " + error);
+            errors += levelErrors.size;
+            if (levelErrors.isEmpty()) {
+                File file = new File(output, "level" + number + LevelBundle.EXTENSION);
+                write(bundle, file);
+                System.out.println("level" + number + ": " + bundle + ", " + file.length() / 1024 + " KB");
+            }
+        }
+        if (errors > 0) throw new IllegalStateException(errors + " level error(s)");
+    }
+
+    public static void write(LevelBundle bundle, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            bundle.write(out);
+        }
+    }
+
+    public static LevelBundle compile(File assets, int number, Array<String> errors) throws IOException {
+        Level level = new Json().fromJson(Level.class, new FileHandle(new File(assets, "Levels/level" + number + ".json")));
+
+        LevelBundle bundle = new LevelBundle();
+        bundle.mapFile = level.mapFile;
+        bundle.backgroundMusic = level.backgroundMusic;
+        bundle.playerStartPosition.set(level.playerStartPosition);
+        bundle.levelCompletionPosition.set(level.levelCompletionPosition);
+        bundle.enemySpawnPoints.addAll(level.enemySpawnPoints);
+        bundle.spawnTriggers.addAll(level.spawnTriggers);
+
+        File packed = new File(assets, "atlas/" + level.mapFile);
+        File mapFile = packed.isFile() ? packed : new File(assets, level.mapFile);
+        compileMap(assets, mapFile, bundle, errors);
+
+        validate(bundle, errors);
+        return bundle;
+    }
+
+    /******* Map *******/
+
+    private static void compileMap(File assets, File mapFile, LevelBundle bundle, Array<String> errors) throws IOException {
+        XmlReader xml = new XmlReader();
+        XmlReader.Element map = xml.parse(new FileHandle(mapFile));
+        File mapDir = mapFile.getParentFile();
+        bundle.width = map.getIntAttribute("width");
+        bundle.height = map.getIntAttribute("height");
+        bundle.tileWidth = map.getIntAttribute("tilewidth");
+        bundle.tileHeight = map.getIntAttribute("tileheight");
+
+        TextureAtlas.TextureAtlasData atlas = null;
+        XmlReader.Element properties = map.getChildByName("properties");
+        if (properties != null) {
+            for (XmlReader.Element property : properties.getChildrenByName("property")) {
+                if (!property.getAttribute("name").equals("atlas")) continue;
+                File atlasFile = new File(mapDir, property.getAttribute("value"));
+                bundle.atlas = relative(assets, atlasFile);
+                atlas = new TextureAtlas.TextureAtlasData(new FileHandle(atlasFile), new FileHandle(atlasFile.getParentFile()), false);
+            }
+        }
+
+        Array<SourceTileset> tilesets = new Array<>();
+        for (XmlReader.Element element : map.getChildrenByName("tileset")) {
+            tilesets.add(loadTileset(xml, assets, mapDir, element, atlas, errors));
+        }
+        for (SourceTileset source : tilesets) bundle.tilesets.add(source.tileset);
+
+        // Distinct GIDs, flip flags included, become the tile table
+        IntIntMap tableIndex = new IntIntMap();
+        Array<int[]> layerGids = new Array<>();
+        Array<XmlReader.Element> layers = new Array<>();
+        for (int i = 0; i < map.getChildCount(); i++) {
+            XmlReader.Element element = map.getChild(i);
+            if (element.getName().equals("layer")) {
+                layers.add(element);
+            } else if (!element.getName().equals("tileset") && !element.getName().equals("properties")) {
+                errors.add("Unsupported " + element.getName() + " " + element.getAttribute("name", ""));
+            }
+        }
+        for (XmlReader.Element element : layers) {
+            int[] gids = BaseTmxMapLoader.getTileIds(element, bundle.width, bundle.height);
+            layerGids.add(gids);
+            for (int gid : gids) {
+                if (gid != 0 && !tableIndex.containsKey(gid)) tableIndex.put(gid, tableIndex.size);
+            }
+        }
+        if (tableIndex.size > 0xFFFF - 1) errors.add(tableIndex.size + " distinct tiles, cells only hold " + (0xFFFF - 1));
+        buildTileTable(bundle, tilesets, tableIndex, errors);
+
+        for (int i = 0; i < layers.size; i++) {
+            XmlReader.Element element = layers.get(i);
+            int[] gids = layerGids.get(i);
+            short[] cells = new short[bundle.width * bundle.height];
+            for (int y = 0; y < bundle.height; y++) {
+                for (int x = 0; x < bundle.width; x++) {
+                    int gid = gids[(bundle.height - 1 - y) * bundle.width + x]; // TMX rows run top to bottom
+                    if (gid != 0) cells[y * bundle.width + x] = (short) (tableIndex.get(gid, 0) + 1);
+                }
+            }
+            LevelBundle.Layer layer = new LevelBundle.Layer();
+            layer.name = element.getAttribute("name", "");
+            layer.visible = element.getIntAttribute("visible", 1) == 1;
+            layer.opacity = element.getFloatAttribute("opacity", 1);
+            layer.cells = ShortBuffer.wrap(cells);
+            bundle.layers.add(layer);
+        }
+
+        // Same loops the game would trace at load
+        boolean[] solid = solidCells(bundle);
+        if (solid == null) {
+            errors.add("No Solid layer");
+            return;
+        }
+        bundle.loops.addAll(CollisionBaker.traceOutlines(solid, bundle.width, bundle.height,
+            bundle.tileWidth / Constants.PPM, bundle.tileHeight / Constants.PPM));
+    }
+
+    private static SourceTileset loadTileset(XmlReader xml, File assets, File mapDir, XmlReader.Element element,
+                                             TextureAtlas.TextureAtlasData atlas, Array<String> errors) throws IOException {
+        SourceTileset source = new SourceTileset();
+        source.firstGid = element.getIntAttribute("firstgid");
+        File dir = mapDir;
+        if (element.getAttribute("source", null) != null) {
+            File file = new File(mapDir, element.getAttribute("source"));
+            element = xml.parse(new FileHandle(file));
+            dir = file.getParentFile();
+        }
+
+        LevelBundle.Tileset tileset = new LevelBundle.Tileset();
+        tileset.name = element.getAttribute("name", "");
+        tileset.tileWidth = element.getIntAttribute("tilewidth", 0);
+        tileset.tileHeight = element.getIntAttribute("tileheight", 0);
+        tileset.margin = element.getIntAttribute("margin", 0);
+        tileset.spacing = element.getIntAttribute("spacing", 0);
+        tileset.columns = element.getIntAttribute("columns", 0);
+        source.tileCount = element.getIntAttribute("tilecount", 0);
+
+        XmlReader.Element image = element.getChildByName("image");
+        if (image != null) {
+            File imageFile = new File(dir, image.getAttribute("source"));
+            if (!imageFile.isFile()) errors.add("Tileset " + tileset.name + " image missing: " + imageFile);
+            tileset.image = relative(assets, imageFile);
+        } else if (atlas != null) {
+            tileset.image = ""; // Regions named after the tileset, see AtlasTmxMapLoader
+        } else {
+            errors.add("Tileset " + tileset.name + " has no image and the map no atlas");
+            tileset.image = "";
+        }
+        source.tileset = tileset;
+        return source;
+    }
+
+    private static void buildTileTable(LevelBundle bundle, Array<SourceTileset> tilesets, IntIntMap tableIndex,
+                                       Array<String> errors) {
+        int tiles = tableIndex.size;
+        bundle.tileTileset = new short[tiles];
+        bundle.tileId = new int[tiles];
+        bundle.tileFlipX = new boolean[tiles];
+        bundle.tileFlipY = new boolean[tiles];
+        bundle.tileRotation = new byte[tiles];
+
+        for (IntIntMap.Entry entry : tableIndex) {
+            int gid = entry.key & MASK_CLEAR, i = entry.value;
+            int owner = -1;
+            for (int t = 0; t < tilesets.size; t++) {
+                if (tilesets.get(t).firstGid <= gid) owner = t;
+            }
+            if (owner < 0) {
+                errors.add("GID " + gid + " belongs to no tileset");
+                continue;
+            }
+            SourceTileset source = tilesets.get(owner);
+            bundle.tileTileset[i] = (short) owner;
+            bundle.tileId[i] = gid - source.firstGid;
+            if (!source.tileset.image.isEmpty() && source.tileCount > 0 && bundle.tileId[i] >= source.tileCount) {
+                errors.add("GID " + gid + " is past the end of tileset " + source.tileset.name);
+            }
+            setOrientation(bundle, i, entry.key);
+        }
+    }
+
+    // Tiled's diagonal flip as libGDX flips and rotation, the same way TmxMapLoader turns it into a cell
+    private static void setOrientation(LevelBundle bundle, int i, int gid) {
+        boolean flipX = (gid & FLIP_HORIZONTALLY) != 0, flipY = (gid & FLIP_VERTICALLY) != 0;
+        int rotation = TiledMapTileLayer.Cell.ROTATE_0;
+        if ((gid & FLIP_DIAGONALLY) != 0) {
+            if (flipX && flipY) {
+                flipY = false;
+                rotation = TiledMapTileLayer.Cell.ROTATE_270;
+            } else if (flipX) {
+                flipX = false;
+                rotation = TiledMapTileLayer.Cell.ROTATE_270;
+            } else if (flipY) {
+                flipY = false;
+                rotation = TiledMapTileLayer.Cell.ROTATE_90;
+            } else {
+                flipY = true;
+                rotation = TiledMapTileLayer.Cell.ROTATE_270;
+            }
+        }
+        bundle.tileFlipX[i] = flipX;
+        bundle.tileFlipY[i] = flipY;
+        bundle.tileRotation[i] = (byte) rotation;
+    }
+
+    private static boolean[] solidCells(LevelBundle bundle) {
+        for (LevelBundle.Layer layer : bundle.layers) {
+            if (!layer.name.equals("Solid")) continue;
+            boolean[] solid = new boolean[bundle.width * bundle.height];
+            for (int i = 0; i < solid.length; i++) solid[i] = layer.cells.get(i) != 0;
+            return solid;
+        }
+        return null;
+    }
+
+    /******* Validation *******/
+
+    private static void validate(LevelBundle bundle, Array<String> errors) {
+        boolean[] solid = solidCells(bundle);
+        if (solid == null) return;
+        float tileWidth = bundle.tileWidth / Constants.PPM, tileHeight = bundle.tileHeight / Constants.PPM;
+
+        checkStandingPoint("Player start", bundle.playerStartPosition, bundle, solid, tileWidth, tileHeight, errors);
+        checkInside("Level completion", bundle.levelCompletionPosition, bundle, solid, tileWidth, tileHeight, errors);
+        for (Vector2 point : bundle.enemySpawnPoints) {
+            checkStandingPoint("Enemy spawn", point, bundle, solid, tileWidth, tileHeight, errors);
+        }
+        for (SpawnTrigger trigger : bundle.spawnTriggers) {
+            checkStandingPoint("Spawn trigger", new Vector2(trigger.x, trigger.y), bundle, solid, tileWidth, tileHeight, errors);
+            if (trigger.count < 1 || trigger.waves < 1) errors.add("Spawn trigger at " + trigger.x + ", " + trigger.y + " spawns nothing");
+        }
+    }
+
+    // Inside the map and not in a wall
+    private static boolean checkInside(String what, Vector2 point, LevelBundle bundle, boolean[] solid,
+                                       float tileWidth, float tileHeight, Array<String> errors) {
+        int x = (int) Math.floor(point.x / tileWidth), y = (int) Math.floor(point.y / tileHeight);
+        if (x < 0 || y < 0 || x >= bundle.width || y >= bundle.height) {
+            errors.add(what + " at " + point + " is outside the map");
+            return false;
+        }
+        if (solid[y * bundle.width + x]) {
+            errors.add(what + " at " + point + " is inside a solid tile");
+            return false;
+        }
+        return true;
+    }
+
+    // Inside, and something solid within MAX_SPAWN_DROP below
+    private static void checkStandingPoint(String what, Vector2 point, LevelBundle bundle, boolean[] solid,
+                                           float tileWidth, float tileHeight, Array<String> errors) {
+        if (!checkInside(what, point, bundle, solid, tileWidth, tileHeight, errors)) return;
+        int x = (int) Math.floor(point.x / tileWidth);
+        int lowest = Math.max(0, (int) Math.floor((point.y - MAX_SPAWN_DROP) / tileHeight));
+        for (int y = (int) Math.floor(point.y / tileHeight); y >= lowest; y--) {
+            if (solid[y * bundle.width + x]) return;
+        }
+        errors.add(what + " at " + point + " has no ground within " + MAX_SPAWN_DROP + " m");
+    }
+
+    private static String relative(File assets, File file) throws IOException {
+        return assets.getCanonicalFile().toPath().relativize(file.getCanonicalFile().toPath()).toString().replace('\\', '/');
+    }
+}
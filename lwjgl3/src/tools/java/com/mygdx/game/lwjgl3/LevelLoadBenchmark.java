@@ -0,0 +1,140 @@
+package com.mygdx.game.lwjgl3;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.BaseTmxMapLoader;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.XmlReader;
+import com.mygdx.game.CollisionBaker;
+import com.mygdx.game.Constants;
+import com.mygdx.game.Level;
+import com.mygdx.game.LevelBundle;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Headless comparison of loading each level from its JSON and TMX against mapping its compiled
+ * LevelBundle, up to the point where PlayingState has a TiledMap and collision loops. Both sides
+ * build the same layers and tiles the loaders would, minus the textures, which need a GL context
+ * and are the same page either way once the map is packed. Bundles are compiled into a temporary
+ * directory first, so this runs without :lwjgl3:compileLevels.
+ * Run with: ./gradlew :lwjgl3:levelLoadBenchmark
+ */
+public class LevelLoadBenchmark {
+
+    private static final int WARMUP_ROUNDS = 30, ROUNDS = 50;
+
+    private static volatile long sink; // Keeps the loads from being optimized away
+
+    public static void main(String[] args) throws Exception {
+        File assets = new File(args.length > 0 ? args[0] : "assets");
+        File bundles = new File(System.getProperty("java.io.tmpdir"), "levelLoadBenchmark");
+        bundles.mkdirs();
+
+        for (int number = 1; new File(assets, "Levels/level" + number + ".json").exists(); number++) {
+            Array<String> errors = new Array<>();
+            File bundle = new File(bundles, "level" + number + LevelBundle.EXTENSION);
+            LevelCompiler.write(LevelCompiler.compile(assets, number, errors), bundle);
+
+            long[] tmx = new long[ROUNDS], compiled = new long[ROUNDS];
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                long start = System.nanoTime();
+                loadTmx(assets, number);
+                long middle = System.nanoTime();
+                loadBundle(bundle);
+                long end = System.nanoTime();
+                if (round >= WARMUP_ROUNDS) {
+                    tmx[round - WARMUP_ROUNDS] = middle - start;
+                    compiled[round - WARMUP_ROUNDS] = end - middle;
+                }
+            }
+            float tmxMillis = median(tmx), bundleMillis = median(compiled);
+            System.out.println(String.format("level%d: JSON + TMX %7.2f ms, bundle %6.2f ms (%.1fx), %d KB mapped",
+                number, tmxMillis, bundleMillis, tmxMillis / bundleMillis, bundle.length() / 1024));
+        }
+    }
+
+    private static float median(long[] nanos) {
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2] / 1_000_000f;
+    }
+
+    /******* JSON and TMX *******/
+
+    // What LevelManager, TmxMapLoader and createCollisionTiles do, without the textures
+    private static void loadTmx(File assets, int number) {
+        Level level = new Json().fromJson(Level.class, new FileHandle(new File(assets, "Levels/level" + number + ".json")));
+        File mapFile = new File(assets, level.mapFile);
+        XmlReader xml = new XmlReader();
+        XmlReader.Element root = xml.parse(new FileHandle(mapFile));
+        int width = root.getIntAttribute("width"), height = root.getIntAttribute("height");
+        int tileWidth = root.getIntAttribute("tilewidth"), tileHeight = root.getIntAttribute("tileheight");
+
+        // Every tile of every tileset gets its tile object, like in addStaticTiles()
+        TiledMap map = new TiledMap();
+        for (XmlReader.Element element : root.getChildrenByName("tileset")) {
+            int firstGid = element.getIntAttribute("firstgid");
+            if (element.getAttribute("source", null) != null) {
+                element = xml.parse(new FileHandle(new File(mapFile.getParentFile(), element.getAttribute("source"))));
+            }
+            TiledMapTileSet tileSet = new TiledMapTileSet();
+            for (int id = 0; id < element.getIntAttribute("tilecount"); id++) {
+                StaticTiledMapTile tile = new StaticTiledMapTile(new TextureRegion());
+                tile.setId(firstGid + id);
+                tileSet.putTile(firstGid + id, tile);
+            }
+            map.getTileSets().addTileSet(tileSet);
+        }
+
+        TiledMapTileLayer solidLayer = null;
+        for (XmlReader.Element element : root.getChildrenByName("layer")) {
+            int[] gids = BaseTmxMapLoader.getTileIds(element, width, height);
+            TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int gid = gids[y * width + x];
+                    TiledMapTile tile = gid == 0 ? null : map.getTileSets().getTile(gid & 0x1FFFFFFF);
+                    if (tile == null) continue;
+                    TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+                    cell.setTile(tile);
+                    layer.setCell(x, height - 1 - y, cell);
+                }
+            }
+            map.getLayers().add(layer);
+            if (element.getAttribute("name").equals("Solid")) solidLayer = layer;
+        }
+
+        boolean[] solid = CollisionBaker.solidCells(solidLayer);
+        Array<float[]> loops = CollisionBaker.traceOutlines(solid, width, height, tileWidth / Constants.PPM, tileHeight / Constants.PPM);
+        sink += loops.size + map.getLayers().getCount();
+    }
+
+    /******* Bundle *******/
+
+    // What LevelManager and PlayingState do with a compiled level, without the textures
+    private static void loadBundle(File file) throws Exception {
+        LevelBundle bundle;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            bundle = LevelBundle.read(buffer);
+        }
+        Level level = bundle.createLevel();
+
+        TextureRegion[] regions = new TextureRegion[bundle.tileId.length];
+        for (int i = 0; i < regions.length; i++) regions[i] = new TextureRegion();
+        TiledMap map = bundle.createMap(regions);
+
+        boolean[] solid = CollisionBaker.solidCells((TiledMapTileLayer) map.getLayers().get("Solid"));
+        sink += level.bundle.loops.size + map.getLayers().getCount() + solid.length;
+    }
+}
@@ -0,0 +1,309 @@
+package com.mygdx.game.lwjgl3;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.ImageIO;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Merges the tilesets of every TMX map in a directory into one padded atlas page per map.
+ * Only the tiles a map actually uses are packed. They become one tileset named after the map,
+ * the layers' GIDs are rewritten to it (flip flags kept), and the map gets the "atlas" property
+ * AtlasTmxMapLoader reads. Tiles are extruded into their padding so nothing bleeds at fractional zoom.
+ * Next to each map a .tiles file lists which source tile every atlas tile came from.
+ * Run with: ./gradlew :lwjgl3:packMaps
+ */
+public class MapAtlasPacker {
+
+    private static final int FLIP_FLAGS = 0xE0000000; // Horizontal, vertical and diagonal flip bits of a GID
+
+    // A source tileset as the map references it
+    private static class Tileset {
+        String name;
+        int firstGid, tileWidth, tileHeight, columns, margin, spacing;
+        BufferedImage image;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.out.println("Usage: MapAtlasPacker <input dir> <output dir>");
+            System.exit(1);
+        }
+        File input = new File(args[0]), output = new File(args[1]);
+        output.mkdirs();
+
+        File[] maps = input.listFiles((dir, name) -> name.endsWith(".tmx"));
+        if (maps == null || maps.length == 0) throw new IOException("No maps in " + input);
+        for (File map : maps) {
+            pack(map, output);
+        }
+    }
+
+    private static void pack(File mapFile, File output) throws Exception {
+        String name = mapFile.getName().substring(0, mapFile.getName().length() - ".tmx".length());
+        Document map = parse(mapFile);
+        Element root = map.getDocumentElement();
+
+        List<Tileset> tilesets = new ArrayList<>();
+        for (Element element : children(root, "tileset")) {
+            tilesets.add(loadTileset(element, mapFile.getParentFile()));
+        }
+
+        // Every GID in use, in GID order so the output doesn't change between runs
+        List<Element> layers = children(root, "layer");
+        List<int[]> layerGids = new ArrayList<>();
+        TreeMap<Integer, Integer> atlasIds = new TreeMap<>();
+        for (Element layer : layers) {
+            int[] gids = decode(child(layer, "data"));
+            layerGids.add(gids);
+            for (int gid : gids) {
+                if ((gid & ~FLIP_FLAGS) != 0) atlasIds.put(gid & ~FLIP_FLAGS, 0);
+            }
+        }
+        int nextId = 0;
+        for (Integer gid : atlasIds.keySet()) atlasIds.put(gid, nextId++);
+
+        // Cut the used tiles out of their sheets, region index is the new local id
+        TexturePacker packer = new TexturePacker(settings());
+        try (PrintWriter sources = new PrintWriter(new File(output, name + ".tiles"), "UTF-8")) {
+            sources.println("# atlas id, source tileset, source id");
+            for (Integer gid : atlasIds.keySet()) {
+                Tileset tileset = tilesetOf(tilesets, gid);
+                int localId = gid - tileset.firstGid;
+                int atlasId = atlasIds.get(gid);
+                packer.addImage(tile(tileset, localId), name + "_" + atlasId);
+                sources.println(atlasId + "\t" + tileset.name + "\t" + localId);
+            }
+        }
+        String atlasName = name + "-tiles"; // Extra pages get a number appended, which mustn't clash with map2 and so on
+        packer.pack(output, atlasName);
+
+        // One tileset in place of the originals, GIDs start at 1 again
+        int tileWidth = Integer.parseInt(root.getAttribute("tilewidth"));
+        int tileHeight = Integer.parseInt(root.getAttribute("tileheight"));
+        Element merged = map.createElement("tileset");
+        merged.setAttribute("firstgid", "1");
+        merged.setAttribute("name", name);
+        merged.setAttribute("tilewidth", Integer.toString(tileWidth));
+        merged.setAttribute("tileheight", Integer.toString(tileHeight));
+        merged.setAttribute("tilecount", Integer.toString(atlasIds.size()));
+        merged.setAttribute("columns", "0");
+        Node first = children(root, "tileset").get(0);
+        root.insertBefore(merged, first);
+        for (Element element : children(root, "tileset")) {
+            if (element == merged) continue;
+            Node indent = element.getPreviousSibling();
+            if (indent != null && indent.getNodeType() == Node.TEXT_NODE && indent.getTextContent().isBlank()) root.removeChild(indent);
+            root.removeChild(element);
+        }
+
+        for (int i = 0; i < layers.size(); i++) {
+            int[] gids = layerGids.get(i);
+            for (int k = 0; k < gids.length; k++) {
+                int gid = gids[k] & ~FLIP_FLAGS;
+                if (gid != 0) gids[k] = (gids[k] & FLIP_FLAGS) | (atlasIds.get(gid) + 1);
+            }
+            encode(child(layers.get(i), "data"), gids);
+        }
+
+        setMapProperty(map, "atlas", atlasName + ".atlas");
+        write(map, new File(output, name + ".tmx"));
+
+        FileHandle atlasFile = new FileHandle(new File(output, atlasName + ".atlas"));
+        int pages = new TextureAtlas.TextureAtlasData(atlasFile, atlasFile.parent(), false).getPages().size;
+        System.out.println(name + ": " + tilesets.size() + " tilesets, " + atlasIds.size() + " tiles used, " + pages + " page(s)");
+        if (pages > 1) System.out.println(name + " doesn't fit one page, raise maxWidth/maxHeight");
+    }
+
+    private static TexturePacker.Settings settings() {
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        settings.maxWidth = 4096;
+        settings.maxHeight = 4096;
+        settings.paddingX = 2;
+        settings.paddingY = 2;
+        settings.duplicatePadding = true; // Extrude the tile edges into the padding
+        settings.edgePadding = true;
+        settings.stripWhitespaceX = false; // The renderer places tiles by their full size
+        settings.stripWhitespaceY = false;
+        settings.rotation = false;
+        settings.pot = false;
+        settings.filterMin = Texture.TextureFilter.Nearest;
+        settings.filterMag = Texture.TextureFilter.Nearest;
+        settings.fast = true; // Thousands of equal-sized tiles, the slow heuristics gain nothing
+        settings.silent = true;
+        return settings;
+    }
+
+    /******* Tilesets *******/
+
+    private static Tileset loadTileset(Element element, File mapDir) throws Exception {
+        Tileset tileset = new Tileset();
+        tileset.firstGid = Integer.parseInt(element.getAttribute("firstgid"));
+
+        File dir = mapDir;
+        if (element.hasAttribute("source")) {
+            File source = new File(mapDir, element.getAttribute("source"));
+            element = parse(source).getDocumentElement();
+            dir = source.getParentFile();
+        }
+        Element image = child(element, "image");
+        if (image == null) throw new IOException("Image collection tilesets aren't supported: " + element.getAttribute("name"));
+
+        tileset.name = element.getAttribute("name");
+        tileset.tileWidth = Integer.parseInt(element.getAttribute("tilewidth"));
+        tileset.tileHeight = Integer.parseInt(element.getAttribute("tileheight"));
+        tileset.margin = intAttribute(element, "margin");
+        tileset.spacing = intAttribute(element, "spacing");
+        tileset.image = ImageIO.read(new File(dir, image.getAttribute("source")));
+        tileset.columns = element.hasAttribute("columns") ? Integer.parseInt(element.getAttribute("columns"))
+            : (tileset.image.getWidth() - 2 * tileset.margin + tileset.spacing) / (tileset.tileWidth + tileset.spacing);
+        return tileset;
+    }
+
+    // Tilesets are in firstgid order, a GID belongs to the last one starting at or before it
+    private static Tileset tilesetOf(List<Tileset> tilesets, int gid) {
+        Tileset found = null;
+        for (Tileset tileset : tilesets) {
+            if (tileset.firstGid <= gid) found = tileset;
+        }
+        if (found == null) throw new IllegalStateException("No tileset has GID " + gid);
+        return found;
+    }
+
+    private static BufferedImage tile(Tileset tileset, int localId) {
+        int x = tileset.margin + (localId % tileset.columns) * (tileset.tileWidth + tileset.spacing);
+        int y = tileset.margin + (localId / tileset.columns) * (tileset.tileHeight + tileset.spacing);
+        BufferedImage tile = new BufferedImage(tileset.tileWidth, tileset.tileHeight, BufferedImage.TYPE_INT_ARGB);
+        // Copied as ARGB values, drawing would blend the nearly transparent pixels
+        int[] pixels = tileset.image.getRGB(x, y, tileset.tileWidth, tileset.tileHeight, null, 0, tileset.tileWidth);
+        tile.setRGB(0, 0, tileset.tileWidth, tileset.tileHeight, pixels, 0, tileset.tileWidth);
+        return tile;
+    }
+
+    /******* Layer data *******/
+
+    private static int[] decode(Element data) throws DataFormatException {
+        String encoding = data.getAttribute("encoding"), compression = data.getAttribute("compression");
+        String text = data.getTextContent().trim();
+        if (encoding.equals("csv")) {
+            String[] values = text.split("\\s*,\\s*");
+            int[] gids = new int[values.length];
+            for (int i = 0; i < values.length; i++) gids[i] = (int) Long.parseLong(values[i]);
+            return gids;
+        }
+        if (!encoding.equals("base64")) throw new IllegalArgumentException("Unsupported layer encoding: " + encoding);
+
+        byte[] bytes = Base64.getMimeDecoder().decode(text);
+        if (compression.equals("zlib")) {
+            Inflater inflater = new Inflater();
+            inflater.setInput(bytes);
+            ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && inflater.needsInput()) throw new DataFormatException("Truncated layer data");
+                inflated.write(buffer, 0, length);
+            }
+            inflater.end();
+            bytes = inflated.toByteArray();
+        } else if (!compression.isEmpty()) {
+            throw new IllegalArgumentException("Unsupported layer compression: " + compression);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int[] gids = new int[bytes.length / 4];
+        for (int i = 0; i < gids.length; i++) gids[i] = buffer.getInt();
+        return gids;
+    }
+
+    // Always written back as base64 and zlib
+    private static void encode(Element data, int[] gids) {
+        ByteBuffer buffer = ByteBuffer.allocate(gids.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int gid : gids) buffer.putInt(gid);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(buffer.array());
+        deflater.finish();
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) deflated.write(chunk, 0, deflater.deflate(chunk));
+        deflater.end();
+
+        data.setAttribute("encoding", "base64");
+        data.setAttribute("compression", "zlib");
+        data.setTextContent("\n   " + Base64.getEncoder().encodeToString(deflated.toByteArray()) + "\n  ");
+    }
+
+    /******* XML *******/
+
+    private static Document parse(File file) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+    }
+
+    private static void write(Document document, File file) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        transformer.transform(new DOMSource(document), new StreamResult(file));
+    }
+
+    private static void setMapProperty(Document map, String name, String value) {
+        Element root = map.getDocumentElement();
+        Element properties = child(root, "properties");
+        if (properties == null) {
+            properties = map.createElement("properties");
+            root.insertBefore(properties, root.getFirstChild());
+        }
+        for (Element property : children(properties, "property")) {
+            if (property.getAttribute("name").equals(name)) properties.removeChild(property);
+        }
+        Element property = map.createElement("property");
+        property.setAttribute("name", name);
+        property.setAttribute("value", value);
+        properties.appendChild(property);
+    }
+
+    private static List<Element> children(Element parent, String name) {
+        List<Element> children = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            if (node instanceof Element && node.getNodeName().equals(name)) children.add((Element) node);
+        }
+        return children;
+    }
+
+    private static Element child(Element parent, String name) {
+        List<Element> children = children(parent, name);
+        return children.isEmpty() ? null : children.get(0);
+    }
+
+    private static int intAttribute(Element element, String name) {
+        return element.hasAttribute(name) ? Integer.parseInt(element.getAttribute(name)) : 0;
+    }
+}
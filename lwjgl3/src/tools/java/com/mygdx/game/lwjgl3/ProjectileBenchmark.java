@@ -0,0 +1,171 @@
+package com.mygdx.game.lwjgl3;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.XmlReader;
+import com.mygdx.game.*;
+
+import java.io.File;
+
+/**
+ * Headless stress scenario for the projectile engines: keeps N player bullets in flight
+ * in a walled arena with enemy-sized targets and times a tick of Box2D bullets
+ * (ProjectilePool) against a tick of ProjectileEngine. Tiles are the size of the first level's,
+ * read from its map in the working directory (assets when run through Gradle).
+ * Run with: ./gradlew :lwjgl3:projectileBenchmark
+ */
+public class ProjectileBenchmark {
+
+    private static final int WIDTH = 200, HEIGHT = 60; // Tiles
+    private static final float TILE = levelTileSize(); // Meters
+    private static final int TARGETS = 20;
+    private static final int WARMUP_TICKS = 120, TICKS = 600;
+
+    public static void main(String[] args) {
+        Box2D.init();
+
+        boolean[] solid = arena();
+        int[] counts = args.length > 0 ? parseCounts(args) : new int[] {250, 1000, 4000};
+
+        for (int count : counts) {
+            float box2d = runBox2D(solid, count);
+            float engine = runEngine(solid, count);
+            System.out.println(String.format("%5d projectiles: Box2D %8.1f us/tick, engine %7.1f us/tick (%.0fx)",
+                count, box2d, engine, box2d / engine));
+        }
+    }
+
+    private static float levelTileSize() {
+        Level level = new Json().fromJson(Level.class, new FileHandle(new File("Levels/level1.json")));
+        XmlReader.Element map = new XmlReader().parse(new FileHandle(new File(level.mapFile)));
+        return map.getIntAttribute("tilewidth") / Constants.PPM;
+    }
+
+    private static int[] parseCounts(String[] args) {
+        int[] counts = new int[args.length];
+        for (int i = 0; i < args.length; i++) counts[i] = Integer.parseInt(args[i]);
+        return counts;
+    }
+
+    // Border walls plus rows of floating platforms
+    private static boolean[] arena() {
+        boolean[] solid = new boolean[WIDTH * HEIGHT];
+        RandomXS128 random = new RandomXS128(1);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                boolean border = x == 0 || y == 0 || x == WIDTH - 1 || y == HEIGHT - 1;
+                boolean platform = y % 8 == 4 && random.nextInt(4) == 0;
+                solid[y * WIDTH + x] = border || platform;
+            }
+        }
+        return solid;
+    }
+
+    private static float targetX(int i) {
+        return (10 + i * (WIDTH - 20) / TARGETS) * TILE;
+    }
+
+    private static float targetY(int i) {
+        return (2 + (i % 6) * 9) * TILE;
+    }
+
+    /******* Box2D bullets *******/
+
+    private static float runBox2D(boolean[] solid, int count) {
+        World world = new World(new Vector2(0, Constants.GRAVITY), true);
+        BodyStateCache bodyStates = new BodyStateCache();
+
+        Array<float[]> loops = CollisionBaker.traceOutlines(solid, WIDTH, HEIGHT, TILE, TILE);
+        Body ground = world.createBody(new BodyDef());
+        for (float[] loop : loops) {
+            ChainShape chain = new ChainShape();
+            chain.createLoop(loop);
+            FixtureDef fixtureDef = new FixtureDef();
+            fixtureDef.shape = chain;
+            fixtureDef.filter.categoryBits = Constants.TILE_CATEGORY;
+            ground.createFixture(fixtureDef);
+            chain.dispose();
+        }
+
+        // Enemy-sized static boxes
+        PolygonShape box = new PolygonShape();
+        box.setAsBox(32 / Constants.PPM / 3.5f / 2, 32 / Constants.PPM / 1.8f / 2);
+        for (int i = 0; i < TARGETS; i++) {
+            BodyDef bodyDef = new BodyDef();
+            bodyDef.position.set(targetX(i), targetY(i));
+            FixtureDef fixtureDef = new FixtureDef();
+            fixtureDef.shape = box;
+            fixtureDef.filter.categoryBits = Constants.ENEMY_CATEGORY;
+            world.createBody(bodyDef).createFixture(fixtureDef);
+        }
+        box.dispose();
+
+        ContactDispatcher contacts = new ContactDispatcher();
+        contacts.register(Constants.BULLET_CATEGORY, Constants.TILE_CATEGORY,
+            (bullet, tile) -> ((Bullet) bullet.getUserData()).markForRemoval());
+        contacts.register(Constants.BULLET_CATEGORY, Constants.ENEMY_CATEGORY,
+            (bullet, enemy) -> ((Bullet) bullet.getUserData()).markHit());
+        world.setContactListener(contacts);
+
+        ProjectilePool pool = new ProjectilePool(count, () -> new Bullet(world, bodyStates), -1, 0, 0);
+        RandomXS128 random = new RandomXS128(2);
+
+        long nanos = 0;
+        for (int tick = 0; tick < WARMUP_TICKS + TICKS; tick++) {
+            while (pool.getActiveCount() < count) {
+                pool.fire(randomX(random), randomY(random), random.nextBoolean());
+            }
+
+            long start = System.nanoTime();
+            bodyStates.savePreviousPositions();
+            world.step(Constants.SIM_STEP, 6, 2);
+            bodyStates.refresh();
+            pool.update(Constants.SIM_STEP);
+            if (tick >= WARMUP_TICKS) nanos += System.nanoTime() - start;
+        }
+
+        world.dispose();
+        return nanos / 1000f / TICKS;
+    }
+
+    /******* ProjectileEngine *******/
+
+    private static float runEngine(boolean[] solid, int count) {
+        ProjectileEngine engine = new ProjectileEngine((projectileCategory, targetCategory, target) -> { }, -1, 0, 0);
+        engine.setTileGrid(new TileGrid(solid, WIDTH, HEIGHT, TILE, TILE));
+        ProjectileLauncher launcher = engine.launcher(Constants.BULLET_CATEGORY,
+            (short) (Constants.TILE_CATEGORY | Constants.ENEMY_CATEGORY), Constants.RAMBO_BULLET_SPEED);
+        RandomXS128 random = new RandomXS128(2);
+
+        long nanos = 0;
+        for (int tick = 0; tick < WARMUP_TICKS + TICKS; tick++) {
+            while (engine.getLiveCount() < count) {
+                launcher.fire(randomX(random), randomY(random), random.nextBoolean());
+            }
+
+            long start = System.nanoTime();
+            engine.clearTargets();
+            for (int i = 0; i < TARGETS; i++) {
+                engine.addTarget(targetX(i), targetY(i), 32 / Constants.PPM / 3.5f / 2, 32 / Constants.PPM / 1.8f / 2,
+                    Constants.ENEMY_CATEGORY, null);
+            }
+            engine.step(Constants.SIM_STEP);
+            if (tick >= WARMUP_TICKS) nanos += System.nanoTime() - start;
+        }
+
+        return nanos / 1000f / TICKS;
+    }
+
+    private static float randomX(RandomXS128 random) {
+        return MathUtils.lerp(2 * TILE, (WIDTH - 2) * TILE, random.nextFloat());
+    }
+
+    private static float randomY(RandomXS128 random) {
+        return MathUtils.lerp(2 * TILE, (HEIGHT - 2) * TILE, random.nextFloat());
+    }
+}
@@ -0,0 +1,143 @@
+package com.mygdx.game.lwjgl3;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.IntArray;
+import com.mygdx.game.Constants;
+import com.mygdx.game.SpatialHash;
+
+import java.util.Arrays;
+
+/**
+ * Headless comparison of GRENADE_RADIUS queries through the SpatialHash against testing every
+ * entity, with enemy-sized boxes spread over a level-sized area. The hash is rebuilt every tick
+ * like in the game, its query time is reported with and without that rebuild spread over
+ * QUERIES_PER_TICK queries. Results are checked against each other first.
+ * Run with: ./gradlew :lwjgl3:spatialHashBenchmark
+ */
+public class SpatialHashBenchmark {
+
+    private static final float WORLD_WIDTH = 400, WORLD_HEIGHT = 60; // Meters
+    private static final float HALF_WIDTH = 32 / Constants.PPM / 3.5f / 2, HALF_HEIGHT = 32 / Constants.PPM / 1.8f / 2;
+    private static final int QUERIES_PER_TICK = 16;
+    private static final int WARMUP_ROUNDS = 20, ROUNDS = 30, TICKS_PER_ROUND = 60;
+
+    private static volatile long sink; // Keeps the loops from being optimized away
+
+    public static void main(String[] args) {
+        int[] counts = args.length > 0 ? parseCounts(args) : new int[] {100, 1000, 10000};
+
+        run(1000, false); // The smallest count would otherwise be measured before the JIT is done
+        for (int count : counts) {
+            run(count, true);
+        }
+    }
+
+    private static void run(int count, boolean print) {
+        RandomXS128 random = new RandomXS128(1);
+        float[] x = new float[count], y = new float[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = random.nextFloat() * WORLD_WIDTH;
+            y[i] = random.nextFloat() * WORLD_HEIGHT;
+        }
+        float[] queryX = new float[QUERIES_PER_TICK * TICKS_PER_ROUND], queryY = new float[queryX.length];
+        for (int q = 0; q < queryX.length; q++) {
+            queryX[q] = random.nextFloat() * WORLD_WIDTH;
+            queryY[q] = random.nextFloat() * WORLD_HEIGHT;
+        }
+
+        check(x, y, queryX, queryY);
+        float brute = runBruteForce(x, y, queryX, queryY);
+        float[] hash = runHash(x, y, queryX, queryY);
+        if (print) System.out.println(String.format(
+            "%6d entities: brute force %8.2f us/query, hash %6.2f us/query (%.1fx), %6.2f with the rebuild (%.1fx)",
+            count, brute, hash[0], brute / hash[0], hash[1], brute / hash[1]));
+    }
+
+    private static int[] parseCounts(String[] args) {
+        int[] counts = new int[args.length];
+        for (int i = 0; i < args.length; i++) counts[i] = Integer.parseInt(args[i]);
+        return counts;
+    }
+
+    private static float median(long[] nanos) {
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2] / 1000f / (TICKS_PER_ROUND * QUERIES_PER_TICK);
+    }
+
+    /******* Brute force *******/
+
+    private static float runBruteForce(float[] x, float[] y, float[] queryX, float[] queryY) {
+        IntArray results = new IntArray();
+        long[] nanos = new long[ROUNDS];
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int q = 0; q < queryX.length; q++) {
+                bruteForce(x, y, queryX[q], queryY[q], results);
+                sink += results.size;
+            }
+            if (round >= WARMUP_ROUNDS) nanos[round - WARMUP_ROUNDS] = System.nanoTime() - start;
+        }
+        return median(nanos);
+    }
+
+    // Same circle against box test as the hash
+    private static void bruteForce(float[] x, float[] y, float circleX, float circleY, IntArray results) {
+        float radius = Constants.GRENADE_RADIUS;
+        results.clear();
+        for (int i = 0; i < x.length; i++) {
+            float dx = circleX - Math.max(x[i] - HALF_WIDTH, Math.min(circleX, x[i] + HALF_WIDTH));
+            float dy = circleY - Math.max(y[i] - HALF_HEIGHT, Math.min(circleY, y[i] + HALF_HEIGHT));
+            if (dx * dx + dy * dy <= radius * radius) results.add(i);
+        }
+    }
+
+    /******* SpatialHash *******/
+
+    // Query time alone and with the rebuild
+    private static float[] runHash(float[] x, float[] y, float[] queryX, float[] queryY) {
+        SpatialHash hash = new SpatialHash(Constants.SPATIAL_HASH_CELL, Constants.SPATIAL_HASH_BUCKET_BITS);
+        IntArray results = new IntArray();
+        long[] queryNanos = new long[ROUNDS], totalNanos = new long[ROUNDS];
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long queryTime = 0, start = System.nanoTime();
+            for (int tick = 0; tick < TICKS_PER_ROUND; tick++) {
+                build(hash, x, y);
+                long queryStart = System.nanoTime();
+                for (int k = 0; k < QUERIES_PER_TICK; k++) {
+                    int q = tick * QUERIES_PER_TICK + k;
+                    hash.queryRadius(queryX[q], queryY[q], Constants.GRENADE_RADIUS, Constants.ENEMY_CATEGORY, results);
+                    sink += results.size;
+                }
+                queryTime += System.nanoTime() - queryStart;
+            }
+            if (round >= WARMUP_ROUNDS) {
+                queryNanos[round - WARMUP_ROUNDS] = queryTime;
+                totalNanos[round - WARMUP_ROUNDS] = System.nanoTime() - start;
+            }
+        }
+        return new float[] {median(queryNanos), median(totalNanos)};
+    }
+
+    private static void build(SpatialHash hash, float[] x, float[] y) {
+        hash.clear();
+        for (int i = 0; i < x.length; i++) {
+            hash.add(x[i], y[i], HALF_WIDTH, HALF_HEIGHT, Constants.ENEMY_CATEGORY, null);
+        }
+        hash.build();
+    }
+
+    private static void check(float[] x, float[] y, float[] queryX, float[] queryY) {
+        SpatialHash hash = new SpatialHash(Constants.SPATIAL_HASH_CELL, Constants.SPATIAL_HASH_BUCKET_BITS);
+        build(hash, x, y);
+        IntArray expected = new IntArray(), actual = new IntArray();
+        for (int q = 0; q < queryX.length; q++) {
+            bruteForce(x, y, queryX[q], queryY[q], expected);
+            hash.queryRadius(queryX[q], queryY[q], Constants.GRENADE_RADIUS, Constants.ENEMY_CATEGORY, actual);
+            expected.sort();
+            actual.sort();
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("Hash and brute force disagree at " + queryX[q] + ", " + queryY[q]);
+            }
+        }
+    }
+}